@@ -0,0 +1,45 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the selected benchmarks with the allocation profiler ({@code -prof gc}) once per contention
+ * level: 1, 4, 16 and 64 threads. Any standard JMH command line option can be passed, for example a
+ * benchmark regexp or {@code -p mode=ACTIVE_SPAN}; an explicit {@code -t} runs that thread count
+ * only.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar ExecutorServiceBenchmark.submit
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+  static final int[] THREADS = {1, 4, 16, 64};
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    int[] threads = commandLineOptions.getThreads().hasValue()
+        ? new int[] {commandLineOptions.getThreads().get()}
+        : THREADS;
+
+    for (int threadCount : threads) {
+      ChainedOptionsBuilder options = new OptionsBuilder()
+          .parent(commandLineOptions)
+          .threads(threadCount)
+          .addProfiler(GCProfiler.class);
+      if (commandLineOptions.getIncludes().isEmpty()) {
+        options.include(BenchmarkRunner.class.getPackage().getName());
+      }
+      new Runner(options.build()).run();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+
+/**
+ * Helpers for setting up the tracer shared by all benchmarks.
+ */
+final class BenchmarkTracer {
+
+  private BenchmarkTracer() {
+  }
+
+  /**
+   * Creates a {@link MockTracer} backed by {@link ThreadLocalScopeManager}. The tracer is closed
+   * right away: a closed {@link MockTracer} still creates and activates spans but discards them on
+   * finish, so {@link TracingMode#CREATE_SPAN} runs do not accumulate millions of finished spans.
+   */
+  static MockTracer create() {
+    MockTracer tracer = new MockTracer(new ThreadLocalScopeManager());
+    tracer.close();
+    return tracer;
+  }
+
+  /**
+   * Activates a parent span on the calling thread if the mode requires one.
+   *
+   * @return scope to close in tear down or null
+   */
+  static Scope activateIfNeeded(MockTracer tracer, TracingMode mode) {
+    if (mode != TracingMode.ACTIVE_SPAN) {
+      return null;
+    }
+    Span parent = tracer.buildSpan("parent").start();
+    return tracer.scopeManager().activate(parent);
+  }
+}
@@ -0,0 +1,24 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Minimal task used by all benchmarks. Each benchmark thread owns its instances and does not submit
+ * an instance again before it ran, so the counter is not contended and does not need to be atomic;
+ * it only keeps the task body from being optimized away. {@link #call()} returns the task itself so the result is never boxed.
+ */
+final class CountingTask implements Runnable, Callable<Object> {
+
+  long count;
+
+  @Override
+  public void run() {
+    count++;
+  }
+
+  @Override
+  public Object call() {
+    count++;
+    return this;
+  }
+}
@@ -0,0 +1,70 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import io.opentracing.Scope;
+import io.opentracing.contrib.concurrent.TracedExecutor;
+import io.opentracing.mock.MockTracer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-task overhead of {@link TracedExecutor#execute(Runnable)} compared to the raw delegate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class ExecutorState {
+    @Param
+    TracingMode mode;
+
+    MockTracer tracer;
+    Executor executor;
+
+    @Setup
+    public void setup() {
+      tracer = BenchmarkTracer.create();
+      Executor delegate = new DirectExecutorService();
+      executor = mode.traced() ? new TracedExecutor(delegate, tracer, mode.traceWithActiveSpanOnly())
+          : delegate;
+    }
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class ThreadState {
+    Scope scope;
+    Runnable task;
+
+    @Setup
+    public void setup(ExecutorState executorState) {
+      scope = BenchmarkTracer.activateIfNeeded(executorState.tracer, executorState.mode);
+      task = new CountingTask();
+    }
+
+    @TearDown
+    public void tearDown() {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Benchmark
+  public void execute(ExecutorState executorState, ThreadState threadState) {
+    executorState.executor.execute(threadState.task);
+  }
+}
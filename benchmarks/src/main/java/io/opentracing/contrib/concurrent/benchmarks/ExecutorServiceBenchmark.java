@@ -0,0 +1,131 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import io.opentracing.Scope;
+import io.opentracing.contrib.concurrent.TracedExecutorService;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call overhead of {@link TracedExecutorService} submit, invokeAll and invokeAny compared to
+ * the raw delegate. Every call waits for its tasks, so that with {@link ExecutorType#THREAD_POOL}
+ * the activation on the worker thread is part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorServiceBenchmark {
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class ExecutorServiceState {
+    @Param
+    TracingMode mode;
+
+    @Param
+    ExecutorType executorType;
+
+    MockTracer tracer;
+    ExecutorService executorService;
+
+    @Setup
+    public void setup() {
+      tracer = BenchmarkTracer.create();
+      ExecutorService delegate = executorType.create();
+      executorService = mode.traced()
+          ? new TracedExecutorService(delegate, tracer, mode.traceWithActiveSpanOnly())
+          : delegate;
+    }
+
+    @TearDown
+    public void tearDown() {
+      executorService.shutdown();
+    }
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class ThreadState {
+    Scope scope;
+    CountingTask task;
+
+    @Setup
+    public void setup(ExecutorServiceState executorServiceState) {
+      scope = BenchmarkTracer.activateIfNeeded(executorServiceState.tracer, executorServiceState.mode);
+      task = new CountingTask();
+    }
+
+    @TearDown
+    public void tearDown() {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  /**
+   * Batch of callables passed to invokeAll and invokeAny, a separate state so that the single
+   * submit benchmarks do not run once per batch size.
+   */
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class BatchState {
+    /**
+     * Number of callables passed to invokeAll and invokeAny.
+     */
+    @Param({"1", "16", "256"})
+    int batchSize;
+
+    List<Callable<Object>> batch;
+
+    @Setup
+    public void setup() {
+      batch = new ArrayList<Callable<Object>>(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        // one instance per callable, pool workers run the batch concurrently
+        batch.add(new CountingTask());
+      }
+    }
+  }
+
+  @Benchmark
+  public Object submitRunnable(ExecutorServiceState state, ThreadState threadState)
+      throws InterruptedException, ExecutionException {
+    return state.executorService.submit((Runnable) threadState.task).get();
+  }
+
+  @Benchmark
+  public Object submitCallable(ExecutorServiceState state, ThreadState threadState)
+      throws InterruptedException, ExecutionException {
+    return state.executorService.submit((Callable<Object>) threadState.task).get();
+  }
+
+  @Benchmark
+  public List<Future<Object>> invokeAll(ExecutorServiceState state, ThreadState threadState,
+      BatchState batchState)
+      throws InterruptedException {
+    return state.executorService.invokeAll(batchState.batch);
+  }
+
+  @Benchmark
+  public Object invokeAny(ExecutorServiceState state, ThreadState threadState,
+      BatchState batchState)
+      throws InterruptedException, ExecutionException {
+    return state.executorService.invokeAny(batchState.batch);
+  }
+}
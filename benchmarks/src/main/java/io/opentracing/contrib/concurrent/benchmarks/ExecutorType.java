@@ -0,0 +1,27 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delegate a benchmark submits tasks to.
+ */
+public enum ExecutorType {
+  /**
+   * {@link DirectExecutorService}, tasks run on the submitting thread. Measures the wrappers alone,
+   * an active span is not activated again for the task.
+   */
+  DIRECT,
+  /**
+   * Fixed thread pool with one thread per processor. Includes the hand-off to a worker, where the
+   * propagated span is activated and closed for every task.
+   */
+  THREAD_POOL;
+
+  ExecutorService create() {
+    if (this == DIRECT) {
+      return new DirectExecutorService();
+    }
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+}
@@ -0,0 +1,104 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+import io.opentracing.Scope;
+import io.opentracing.contrib.concurrent.TracedScheduledExecutorService;
+import io.opentracing.mock.MockTracer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call overhead of {@link TracedScheduledExecutorService} schedule methods compared to the raw
+ * delegate. Tasks are scheduled far in the future and cancelled right away, so the measurement
+ * covers scheduling and cancellation (the common timeout pattern) but not execution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduledExecutorServiceBenchmark {
+
+  private static final long DELAY_HOURS = 1;
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class ScheduledExecutorServiceState {
+    @Param
+    TracingMode mode;
+
+    MockTracer tracer;
+    ScheduledExecutorService executorService;
+
+    @Setup
+    public void setup() {
+      tracer = BenchmarkTracer.create();
+      ScheduledThreadPoolExecutor delegate = new ScheduledThreadPoolExecutor(1);
+      // keep the delayed work queue small, otherwise it grows with cancelled tasks
+      delegate.setRemoveOnCancelPolicy(true);
+      executorService = mode.traced()
+          ? new TracedScheduledExecutorService(delegate, tracer, mode.traceWithActiveSpanOnly())
+          : delegate;
+    }
+
+    @TearDown
+    public void tearDown() {
+      executorService.shutdownNow();
+    }
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class ThreadState {
+    Scope scope;
+    CountingTask task;
+
+    @Setup
+    public void setup(ScheduledExecutorServiceState state) {
+      scope = BenchmarkTracer.activateIfNeeded(state.tracer, state.mode);
+      task = new CountingTask();
+    }
+
+    @TearDown
+    public void tearDown() {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean scheduleRunnable(ScheduledExecutorServiceState state, ThreadState threadState) {
+    return state.executorService.schedule((Runnable) threadState.task, DELAY_HOURS, TimeUnit.HOURS)
+        .cancel(false);
+  }
+
+  @Benchmark
+  public boolean scheduleCallable(ScheduledExecutorServiceState state, ThreadState threadState) {
+    return state.executorService.schedule((Callable<Object>) threadState.task, DELAY_HOURS, TimeUnit.HOURS)
+        .cancel(false);
+  }
+
+  @Benchmark
+  public boolean scheduleAtFixedRate(ScheduledExecutorServiceState state, ThreadState threadState) {
+    return state.executorService.scheduleAtFixedRate(threadState.task, DELAY_HOURS, DELAY_HOURS,
+        TimeUnit.HOURS).cancel(false);
+  }
+
+  @Benchmark
+  public boolean scheduleWithFixedDelay(ScheduledExecutorServiceState state,
+      ThreadState threadState) {
+    return state.executorService.scheduleWithFixedDelay(threadState.task, DELAY_HOURS, DELAY_HOURS,
+        TimeUnit.HOURS).cancel(false);
+  }
+}
@@ -0,0 +1,32 @@
+package io.opentracing.contrib.concurrent.benchmarks;
+
+/**
+ * Tracing situation a benchmark submits tasks in.
+ */
+public enum TracingMode {
+  /**
+   * Undecorated delegate, the baseline every other mode is compared against.
+   */
+  RAW,
+  /**
+   * Traced wrapper, no span is active on the submitting thread.
+   */
+  NO_ACTIVE_SPAN,
+  /**
+   * Traced wrapper, a span is active on the submitting thread and propagated to the task.
+   */
+  ACTIVE_SPAN,
+  /**
+   * Traced wrapper with {@code traceWithActiveSpanOnly = false}, no span is active so the wrapper
+   * creates one per submit.
+   */
+  CREATE_SPAN;
+
+  boolean traced() {
+    return this != RAW;
+  }
+
+  boolean traceWithActiveSpanOnly() {
+    return this != CREATE_SPAN;
+  }
+}
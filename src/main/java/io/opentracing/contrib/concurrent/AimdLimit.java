@@ -0,0 +1,59 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free adaptive concurrency limit with additive increase and multiplicative decrease. The
+ * limit grows by one for every task finished in time while at least half of the limit was in use.
+ * It is multiplied by {@value #BACKOFF_RATIO} for every task which failed or ran longer than the
+ * timeout.
+ */
+public final class AimdLimit {
+
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long timeoutNanos;
+  private final AtomicInteger limit;
+
+  /**
+   * @param timeout run time above which a task counts as a sign of overload
+   */
+  public AimdLimit(int initialLimit, int minLimit, int maxLimit, long timeout, TimeUnit timeUnit) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit
+        || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("invalid limits: " + initialLimit + " in [" + minLimit
+          + ", " + maxLimit + "]");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.timeoutNanos = timeUnit.toNanos(timeout);
+    this.limit = new AtomicInteger(initialLimit);
+  }
+
+  public int limit() {
+    return limit.get();
+  }
+
+  /**
+   * @param inFlight tasks running when the task finished, including it
+   */
+  void onSample(int inFlight, long runNanos, boolean failed) {
+    while (true) {
+      int current = limit.get();
+      int next;
+      if (failed || runNanos > timeoutNanos) {
+        next = Math.max(minLimit, Math.min(current - 1, (int) (current * BACKOFF_RATIO)));
+      } else if (inFlight * 2 >= current) {
+        next = Math.min(maxLimit, current + 1);
+      } else {
+        return;
+      }
+      if (next == current || limit.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import java.util.List;
+
+/**
+ * Notifies several listeners in order. The state of the task is the array of the states returned
+ * by the listeners, or null if none returned one.
+ */
+class CompositeExecutorListener implements ExecutorListener {
+
+  private final ExecutorListener[] listeners;
+
+  private CompositeExecutorListener(ExecutorListener[] listeners) {
+    this.listeners = listeners;
+  }
+
+  /**
+   * @return null for no listeners, the listener itself for one, composite otherwise
+   */
+  static ExecutorListener of(List<ExecutorListener> listeners) {
+    if (listeners.isEmpty()) {
+      return null;
+    }
+    if (listeners.size() == 1) {
+      return listeners.get(0);
+    }
+    return new CompositeExecutorListener(listeners.toArray(new ExecutorListener[listeners.size()]));
+  }
+
+  @Override
+  public void onSubmit(Object task, Span span) {
+    for (ExecutorListener listener: listeners) {
+      listener.onSubmit(task, span);
+    }
+  }
+
+  @Override
+  public Object onSubmitWithState(Object task, Span span) {
+    Object[] states = null;
+    for (int i = 0; i < listeners.length; i++) {
+      Object state = listeners[i].onSubmitWithState(task, span);
+      if (state != null) {
+        if (states == null) {
+          states = new Object[listeners.length];
+        }
+        states[i] = state;
+      }
+    }
+    return states;
+  }
+
+  @Override
+  public void onRejected(Object task, Span span) {
+    for (ExecutorListener listener: listeners) {
+      listener.onRejected(task, span);
+    }
+  }
+
+  @Override
+  public void onRejected(Object task, Span span, Object state) {
+    Object[] states = (Object[]) state;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].onRejected(task, span, states == null ? null : states[i]);
+    }
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos) {
+    for (ExecutorListener listener: listeners) {
+      listener.onStart(task, span, queueWaitNanos);
+    }
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos, Object state) {
+    Object[] states = (Object[]) state;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].onStart(task, span, queueWaitNanos, states == null ? null : states[i]);
+    }
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error) {
+    for (ExecutorListener listener: listeners) {
+      listener.onFinish(task, span, queueWaitNanos, runNanos, error);
+    }
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error, Object state) {
+    Object[] states = (Object[]) state;
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].onFinish(task, span, queueWaitNanos, runNanos, error,
+          states == null ? null : states[i]);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.concurrent.Callable;
+
+/**
+ * Immutable snapshot of the active span and additional entries, e.g. tenant id, captured once and
+ * shared by any number of tasks submitted to any executors.
+ *
+ * <pre>
+ * ContextSnapshot snapshot = ContextSnapshot.capture(tracer).with("tenant", tenantId);
+ * ioPool.execute(snapshot.wrap(fetch));
+ * cpuPool.submit(snapshot.wrap(compute));
+ * </pre>
+ *
+ * Entries are visible to the task via {@link #current()}. A snapshot captured while another one is
+ * active inherits its entries. Wrapped tasks are meant for plain executors, traced executors would
+ * wrap them once more.
+ */
+public final class ContextSnapshot {
+
+  private static final ThreadLocal<ContextSnapshot> CURRENT = new ThreadLocal<ContextSnapshot>();
+
+  private static final Scope NOOP_SCOPE = new Scope() {
+    @Override
+    public void close() {
+    }
+  };
+
+  private final Tracer tracer;
+  private final Span span;
+  private final Entry entries;
+
+  private ContextSnapshot(Tracer tracer, Span span, Entry entries) {
+    this.tracer = tracer;
+    this.span = span;
+    this.entries = entries;
+  }
+
+  /**
+   * Captures the active span of the current thread and the entries of the current snapshot.
+   */
+  public static ContextSnapshot capture(Tracer tracer) {
+    return of(tracer, tracer.activeSpan());
+  }
+
+  /**
+   * @param span span to activate in tasks, may be null
+   */
+  public static ContextSnapshot of(Tracer tracer, Span span) {
+    ContextSnapshot current = CURRENT.get();
+    return new ContextSnapshot(tracer, span, current != null ? current.entries : null);
+  }
+
+  /**
+   * @return snapshot activated on the current thread or null if there is none
+   */
+  public static ContextSnapshot current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @return new snapshot with the entry added, the value replaces an existing value of the key
+   */
+  public ContextSnapshot with(String key, Object value) {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    return new ContextSnapshot(tracer, span, new Entry(key, value, entries));
+  }
+
+  /**
+   * @return new snapshot with the deadline, see {@link Deadline#KEY}
+   */
+  public ContextSnapshot with(Deadline deadline) {
+    return with(Deadline.KEY, deadline);
+  }
+
+  /**
+   * @return value of the entry or null if there is none
+   */
+  public Object get(String key) {
+    for (Entry entry = entries; entry != null; entry = entry.next) {
+      if (entry.key.equals(key)) {
+        return entry.value;
+      }
+    }
+    return null;
+  }
+
+  public Span span() {
+    return span;
+  }
+
+  /**
+   * Makes this snapshot current and activates its span. Nothing is activated if both are already
+   * active on the current thread.
+   *
+   * @return scope restoring the previous state, has to be closed on the same thread
+   */
+  public Scope activate() {
+    ContextSnapshot previous = CURRENT.get();
+    Scope scope = Scopes.activateIfChanged(tracer, span);
+    if (previous == this && scope == null) {
+      return NOOP_SCOPE;
+    }
+    CURRENT.set(this);
+    return new SnapshotScope(scope, previous);
+  }
+
+  public Runnable wrap(Runnable runnable) {
+    return new SnapshotRunnable(runnable, this);
+  }
+
+  public <V> Callable<V> wrap(Callable<V> callable) {
+    return new SnapshotCallable<V>(callable, this);
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final Object value;
+    private final Entry next;
+
+    private Entry(String key, Object value, Entry next) {
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  private static final class SnapshotScope implements Scope {
+    private final Scope scope;
+    private final ContextSnapshot previous;
+
+    private SnapshotScope(Scope scope, ContextSnapshot previous) {
+      this.scope = scope;
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (scope != null) {
+        scope.close();
+      }
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  private static final class SnapshotRunnable implements Runnable {
+    private final Runnable delegate;
+    private final ContextSnapshot snapshot;
+
+    private SnapshotRunnable(Runnable delegate, ContextSnapshot snapshot) {
+      this.delegate = delegate;
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public void run() {
+      Scope scope = snapshot.activate();
+      try {
+        delegate.run();
+      } finally {
+        scope.close();
+      }
+    }
+  }
+
+  private static final class SnapshotCallable<V> implements Callable<V> {
+    private final Callable<V> delegate;
+    private final ContextSnapshot snapshot;
+
+    private SnapshotCallable(Callable<V> delegate, ContextSnapshot snapshot) {
+      this.delegate = delegate;
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public V call() throws Exception {
+      Scope scope = snapshot.activate();
+      try {
+        return delegate.call();
+      } finally {
+        scope.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time after which the result of a request is not needed anymore. The deadline travels in
+ * a {@link ContextSnapshot}, executors configured with
+ * {@link TracedExecutorOptions.Builder#propagateDeadline(boolean)} pick up the deadline of the
+ * current snapshot and fail the futures of tasks which are dequeued after it expired.
+ *
+ * <pre>
+ * Scope scope = ContextSnapshot.capture(tracer)
+ *     .with(Deadline.after(200, TimeUnit.MILLISECONDS))
+ *     .activate();
+ * </pre>
+ */
+public final class Deadline {
+
+  /**
+   * Key of the deadline entry in {@link ContextSnapshot}.
+   */
+  public static final String KEY = "deadline";
+
+  private final long deadlineNanos;
+
+  private Deadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  public static Deadline after(long duration, TimeUnit timeUnit) {
+    return new Deadline(System.nanoTime() + timeUnit.toNanos(duration));
+  }
+
+  /**
+   * @return deadline of the current {@link ContextSnapshot} or null if there is none
+   */
+  public static Deadline current() {
+    ContextSnapshot snapshot = ContextSnapshot.current();
+    if (snapshot == null) {
+      return null;
+    }
+    Object deadline = snapshot.get(KEY);
+    return deadline instanceof Deadline ? (Deadline) deadline : null;
+  }
+
+  /**
+   * @return nanoseconds until the deadline, zero or negative if it expired
+   */
+  public long remainingNanos() {
+    return deadlineNanos - System.nanoTime();
+  }
+
+  public boolean isExpired() {
+    return remainingNanos() <= 0;
+  }
+
+  /**
+   * @return the timeout in nanoseconds, shortened to the time remaining until the deadline
+   */
+  long clamp(long timeout, TimeUnit timeUnit) {
+    return Math.max(0, Math.min(timeUnit.toNanos(timeout), remainingNanos()));
+  }
+}
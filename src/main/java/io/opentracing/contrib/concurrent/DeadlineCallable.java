@@ -0,0 +1,44 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Callable failing with {@link TimeoutException} if its {@link Deadline} expired before it was
+ * dequeued. Runnables submitted for a future are wrapped in it as well, so that their future fails
+ * the same way.
+ *
+ * @see DeadlineRunnable
+ */
+class DeadlineCallable<V> implements Callable<V> {
+
+  /**
+   * Submitted runnable or callable.
+   */
+  final Object task;
+  private final Callable<V> delegate;
+  private final Deadline deadline;
+  private boolean expired;
+
+  DeadlineCallable(Callable<V> delegate, Object task, Deadline deadline) {
+    this.delegate = delegate;
+    this.task = task;
+    this.deadline = deadline;
+  }
+
+  @Override
+  public V call() throws Exception {
+    if (deadline.isExpired()) {
+      expired = true;
+      throw new TimeoutException(DeadlineRunnable.EXPIRED_MESSAGE);
+    }
+    return delegate.call();
+  }
+
+  /**
+   * @see DeadlineRunnable#expired()
+   */
+  boolean expired() {
+    return expired;
+  }
+}
@@ -0,0 +1,56 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Runnable checking its {@link Deadline} when it is dequeued. The outcome of a plain runnable is
+ * owned by whoever executed it, e.g. a {@link java.util.concurrent.CompletableFuture} or a
+ * {@code SubmissionPublisher}, and skipping it could leave them waiting forever,
+ * so an expired runnable still runs. Only a {@link RunnableFuture} is skipped: it is cancelled,
+ * which completes the future. The instrumented task wrapping it tags the per-task span, if there is
+ * one, as expired and reports a skipped run as failed. The span propagated from the caller is not
+ * tagged, the caller has likely finished it by the time the deadline expired.
+ */
+class DeadlineRunnable implements Runnable {
+
+  static final String EXPIRED_TAG = "expired";
+  static final String EXPIRED_MESSAGE = "deadline expired before the task started";
+
+  final Runnable delegate;
+  private final Deadline deadline;
+  private boolean expired;
+  private boolean skipped;
+
+  DeadlineRunnable(Runnable delegate, Deadline deadline) {
+    this.delegate = delegate;
+    this.deadline = deadline;
+  }
+
+  @Override
+  public void run() {
+    if (deadline.isExpired()) {
+      expired = true;
+      if (delegate instanceof RunnableFuture) {
+        skipped = true;
+        ((RunnableFuture<?>) delegate).cancel(false);
+        return;
+      }
+    }
+    delegate.run();
+  }
+
+  /**
+   * @return true if the deadline expired before the task started, read on the thread which ran the
+   * task
+   */
+  boolean expired() {
+    return expired;
+  }
+
+  /**
+   * @return true if the run was skipped because the deadline expired
+   */
+  boolean skipped() {
+    return skipped;
+  }
+}
@@ -0,0 +1,88 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+
+/**
+ * Listener notified by traced executors about the lifecycle of every submitted task. Callbacks run
+ * on the submitting thread (submit, rejection) or on the worker thread (start, finish), so
+ * implementations have to be thread safe and cheap.
+ *
+ * <p>The task passed to callbacks is the original {@link Runnable} or
+ * {@link java.util.concurrent.Callable} submitted by the caller, for invokeAll/invokeAny rejections
+ * it is the submitted collection. The span is the span the task runs in (the per-task span with
+ * {@link TracedExecutorOptions#spanPerTask()}) or null if the task is not traced.
+ *
+ * <p>Traced executors call the variants taking a state: whatever
+ * {@link #onSubmitWithState(Object, Span)} returns on the submitting thread is kept with the task
+ * and handed back to the start and finish callbacks on the worker thread, e.g. a group the task
+ * was assigned to while the context of the submitting thread was available. The default
+ * implementations delegate to the variants without state.
+ *
+ * @see ExecutorMetrics
+ */
+public interface ExecutorListener {
+
+  /**
+   * Task is about to be handed to the delegate.
+   */
+  void onSubmit(Object task, Span span);
+
+  /**
+   * Task is about to be handed to the delegate.
+   *
+   * @return state kept with the task until it finishes or null
+   */
+  default Object onSubmitWithState(Object task, Span span) {
+    onSubmit(task, span);
+    return null;
+  }
+
+  /**
+   * The delegate rejected the task, reported after {@link #onSubmit(Object, Span)} for it.
+   */
+  void onRejected(Object task, Span span);
+
+  /**
+   * The delegate rejected the task, reported after {@link #onSubmit(Object, Span)} for it.
+   *
+   * @param state returned by {@link #onSubmitWithState(Object, Span)} for the task
+   */
+  default void onRejected(Object task, Span span, Object state) {
+    onRejected(task, span);
+  }
+
+  /**
+   * Task started on a worker thread.
+   *
+   * @param queueWaitNanos time between submit (or the due time of a delayed task) and start
+   */
+  void onStart(Object task, Span span, long queueWaitNanos);
+
+  /**
+   * Task started on a worker thread.
+   *
+   * @param state returned by {@link #onSubmitWithState(Object, Span)} for the task
+   */
+  default void onStart(Object task, Span span, long queueWaitNanos, Object state) {
+    onStart(task, span, queueWaitNanos);
+  }
+
+  /**
+   * Task finished on a worker thread.
+   *
+   * @param queueWaitNanos time between submit (or the due time of a delayed task) and start
+   * @param runNanos time the task ran
+   * @param error exception thrown by the task or null if it completed normally
+   */
+  void onFinish(Object task, Span span, long queueWaitNanos, long runNanos, Throwable error);
+
+  /**
+   * Task finished on a worker thread.
+   *
+   * @param state returned by {@link #onSubmitWithState(Object, Span)} for the task
+   */
+  default void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error, Object state) {
+    onFinish(task, span, queueWaitNanos, runNanos, error);
+  }
+}
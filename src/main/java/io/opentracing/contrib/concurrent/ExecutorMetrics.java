@@ -0,0 +1,137 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ExecutorListener} keeping lock-free counters and latency histograms of an executor.
+ *
+ * <pre>
+ * ExecutorMetrics metrics = new ExecutorMetrics();
+ * ExecutorService executorService = new TracedExecutorService(delegate, tracer,
+ *     TracedExecutorOptions.builder().addListener(metrics).build());
+ * </pre>
+ *
+ * Tasks cancelled before they start are counted as submitted only, they stay in flight.
+ */
+public class ExecutorMetrics implements ExecutorListener {
+
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong inFlight = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong started = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final LatencyHistogram queueWait = new LatencyHistogram();
+  private final LatencyHistogram runTime = new LatencyHistogram();
+
+  @Override
+  public void onSubmit(Object task, Span span) {
+    submitted.incrementAndGet();
+    inFlight.incrementAndGet();
+  }
+
+  @Override
+  public Object onSubmitWithState(Object task, Span span) {
+    onSubmit(task, span);
+    return new InFlight();
+  }
+
+  @Override
+  public void onRejected(Object task, Span span) {
+    rejected.incrementAndGet();
+    inFlight.decrementAndGet();
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos) {
+    started.incrementAndGet();
+    queueWait.record(queueWaitNanos);
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error) {
+    if (error == null) {
+      completed.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+    runTime.record(runNanos);
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error, Object state) {
+    onFinish(task, span, queueWaitNanos, runNanos, error);
+    if (state instanceof InFlight) {
+      ((InFlight) state).finished(inFlight);
+    }
+  }
+
+  public long submitted() {
+    return submitted.get();
+  }
+
+  public long rejected() {
+    return rejected.get();
+  }
+
+  public long started() {
+    return started.get();
+  }
+
+  public long completed() {
+    return completed.get();
+  }
+
+  public long failed() {
+    return failed.get();
+  }
+
+  /**
+   * @return number of submitted tasks which were neither rejected nor finished yet, queued tasks
+   * included. A periodic task leaves when its first run finishes.
+   */
+  public long inFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * @return number of tasks currently running
+   */
+  public long running() {
+    // read finished counters first so that the result is never negative
+    long finished = completed.get() + failed.get();
+    return started.get() - finished;
+  }
+
+  /**
+   * @return histogram of nanoseconds between submit and start
+   */
+  public LatencyHistogram queueWait() {
+    return queueWait;
+  }
+
+  /**
+   * @return histogram of nanoseconds tasks ran
+   */
+  public LatencyHistogram runTime() {
+    return runTime;
+  }
+
+  /**
+   * Kept with a task from submit to finish. Runs of a periodic task finish one after another on
+   * worker threads, only the first one leaves the in flight count.
+   */
+  private static final class InFlight {
+    private boolean finished;
+
+    void finished(AtomicLong inFlight) {
+      if (!finished) {
+        finished = true;
+        inFlight.decrementAndGet();
+      }
+    }
+  }
+}
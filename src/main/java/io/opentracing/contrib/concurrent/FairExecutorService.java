@@ -0,0 +1,238 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Tracer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor service which keeps a queue per group of tasks, by default per trace, and dispatches
+ * them to the delegate round-robin. One request fanning out thousands of tasks then delays only its
+ * own tasks instead of everything queued behind them.
+ *
+ * <p>At most {@code parallelism} tasks are handed to the delegate at a time, it should match the
+ * number of delegate threads. A thread finishing a task takes the next one from the next group
+ * itself, so the delegate queue stays short and tasks are not re-submitted. Groups are determined
+ * on the submitting thread, wrap this executor with a traced one to propagate spans:
+ *
+ * <pre>
+ * ExecutorService executorService = new TracedExecutorService(
+ *     new FairExecutorService(Executors.newFixedThreadPool(16), tracer, 16), tracer);
+ * </pre>
+ */
+public class FairExecutorService extends AbstractExecutorService {
+
+  private final ExecutorService delegate;
+  private final Tracer tracer;
+  private final int parallelism;
+  private final TaskClassifier classifier;
+
+  private final Object lock = new Object();
+  private final Map<String, Queue<Runnable>> queues = new HashMap<String, Queue<Runnable>>();
+  /**
+   * Groups with queued tasks in dispatch order.
+   */
+  private final Queue<String> groups = new ArrayDeque<String>();
+  private int queued;
+  private int running;
+  private boolean shutdown;
+
+  public FairExecutorService(ExecutorService delegate, Tracer tracer, int parallelism) {
+    this(delegate, tracer, parallelism, TaskClassifiers.traceId());
+  }
+
+  public FairExecutorService(ExecutorService delegate, Tracer tracer, int parallelism,
+      TaskClassifier classifier) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism has to be positive: " + parallelism);
+    }
+    this.delegate = delegate;
+    this.tracer = tracer;
+    this.parallelism = parallelism;
+    this.classifier = classifier;
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    if (runnable == null) {
+      throw new NullPointerException();
+    }
+    String group = classifier.classify(runnable, tracer.activeSpan());
+    synchronized (lock) {
+      if (shutdown) {
+        throw new RejectedExecutionException("Executor is shut down");
+      }
+      if (running >= parallelism) {
+        enqueue(group == null ? "" : group, runnable);
+        return;
+      }
+      running++;
+    }
+    dispatch(runnable);
+  }
+
+  /**
+   * @return number of tasks waiting in the group queues, not yet handed to the delegate
+   */
+  public int queuedTasks() {
+    synchronized (lock) {
+      return queued;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    boolean idle;
+    synchronized (lock) {
+      shutdown = true;
+      idle = running == 0;
+    }
+    // otherwise the last running worker shuts the delegate down once the queues are drained
+    if (idle) {
+      delegate.shutdown();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> tasks = new ArrayList<Runnable>();
+    synchronized (lock) {
+      shutdown = true;
+      Runnable task;
+      while ((task = poll()) != null) {
+        tasks.add(task);
+      }
+    }
+    for (Runnable task: delegate.shutdownNow()) {
+      tasks.add(task instanceof Worker ? ((Worker) task).first : task);
+    }
+    return tasks;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    synchronized (lock) {
+      return shutdown;
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, timeUnit);
+  }
+
+  private void dispatch(Runnable runnable) {
+    try {
+      delegate.execute(new Worker(runnable));
+    } catch (RejectedExecutionException e) {
+      release();
+      throw e;
+    }
+  }
+
+  /**
+   * Takes the next task or releases the slot of the calling worker.
+   */
+  private Runnable next() {
+    synchronized (lock) {
+      Runnable next = poll();
+      if (next != null) {
+        return next;
+      }
+    }
+    release();
+    return null;
+  }
+
+  private void release() {
+    boolean terminate;
+    synchronized (lock) {
+      running--;
+      terminate = shutdown && running == 0 && queued == 0;
+    }
+    if (terminate) {
+      delegate.shutdown();
+    }
+  }
+
+  private void enqueue(String group, Runnable runnable) {
+    Queue<Runnable> queue = queues.get(group);
+    if (queue == null) {
+      queue = new ArrayDeque<Runnable>();
+      queues.put(group, queue);
+      groups.add(group);
+    }
+    queue.add(runnable);
+    queued++;
+  }
+
+  private Runnable poll() {
+    String group = groups.poll();
+    if (group == null) {
+      return null;
+    }
+    Queue<Runnable> queue = queues.get(group);
+    Runnable runnable = queue.poll();
+    if (queue.isEmpty()) {
+      queues.remove(group);
+    } else {
+      groups.add(group);
+    }
+    queued--;
+    return runnable;
+  }
+
+  /**
+   * Runs tasks on a delegate thread as long as there are queued ones.
+   */
+  private class Worker implements Runnable {
+    private final Runnable first;
+
+    Worker(Runnable first) {
+      this.first = first;
+    }
+
+    @Override
+    public void run() {
+      Runnable task = first;
+      while (task != null) {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          handOver();
+          throw e;
+        } catch (Error e) {
+          handOver();
+          throw e;
+        }
+        task = next();
+      }
+    }
+
+    /**
+     * The task failed and the exception terminates this worker, continue in a new one.
+     */
+    private void handOver() {
+      Runnable next = next();
+      if (next != null) {
+        try {
+          dispatch(next);
+        } catch (RejectedExecutionException e) {
+          // the delegate was shut down directly, drop the task like its own queued tasks
+        }
+      }
+    }
+  }
+}
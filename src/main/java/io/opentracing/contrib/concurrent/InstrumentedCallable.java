@@ -0,0 +1,49 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import java.util.concurrent.Callable;
+
+/**
+ * Callable measured by the executor.
+ */
+class InstrumentedCallable<V> extends InstrumentedTask implements Callable<V> {
+
+  private final Callable<V> delegate;
+
+  InstrumentedCallable(Callable<V> delegate, TracedExecutor executor, Span parent,
+      Object state, String operationName, long delayNanos) {
+    super(executor, parent, state, operationName, delayNanos);
+    this.delegate = delegate;
+  }
+
+  @Override
+  Object task() {
+    // report the submitted task, not its deadline check
+    return delegate instanceof DeadlineCallable ? ((DeadlineCallable<?>) delegate).task : delegate;
+  }
+
+  @Override
+  boolean expired() {
+    return delegate instanceof DeadlineCallable && ((DeadlineCallable<?>) delegate).expired();
+  }
+
+  @Override
+  public V call() throws Exception {
+    long startNanos = System.nanoTime();
+    Span span = start(startNanos);
+    Scope scope = activate(span);
+    Throwable error = null;
+    try {
+      return delegate.call();
+    } catch (Exception e) {
+      error = e;
+      throw e;
+    } catch (Error e) {
+      error = e;
+      throw e;
+    } finally {
+      finish(scope, span, startNanos, error);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runnable measured by the executor.
+ */
+class InstrumentedRunnable extends InstrumentedTask implements Runnable {
+
+  private final Runnable delegate;
+
+  InstrumentedRunnable(Runnable delegate, TracedExecutor executor, Span parent,
+      Object state, String operationName, long delayNanos) {
+    super(executor, parent, state, operationName, delayNanos);
+    this.delegate = delegate;
+  }
+
+  @Override
+  Object task() {
+    // report the submitted task, not its deadline check
+    return delegate instanceof DeadlineRunnable ? ((DeadlineRunnable) delegate).delegate
+        : delegate;
+  }
+
+  @Override
+  boolean expired() {
+    return delegate instanceof DeadlineRunnable && ((DeadlineRunnable) delegate).expired();
+  }
+
+  private boolean skipped() {
+    return delegate instanceof DeadlineRunnable && ((DeadlineRunnable) delegate).skipped();
+  }
+
+  @Override
+  public void run() {
+    long startNanos = System.nanoTime();
+    Span span = start(startNanos);
+    Scope scope = activate(span);
+    Throwable error = null;
+    try {
+      delegate.run();
+      if (skipped()) {
+        error = new TimeoutException(DeadlineRunnable.EXPIRED_MESSAGE);
+      }
+    } catch (RuntimeException e) {
+      error = e;
+      throw e;
+    } catch (Error e) {
+      error = e;
+      throw e;
+    } finally {
+      finish(scope, span, startNanos, error);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.tag.Tags;
+
+/**
+ * Common part of tasks measured by the executor: they run in their own child span (see
+ * {@link TracedExecutorOptions.Builder#spanPerTask(boolean)}), log their lifecycle events at
+ * completion (see {@link TracedExecutorOptions.Builder#taskEvents(boolean)}) and/or report to the
+ * {@link ExecutorListener}. The submit timestamp is taken when the task is wrapped, i.e. right
+ * before it is handed to the delegate.
+ */
+abstract class InstrumentedTask {
+
+  static final String QUEUE_WAIT_TAG = "queue.wait.ns";
+  static final String EXEC_TAG = "exec.ns";
+
+  private final TracedExecutor executor;
+  private final Span parent;
+  private final Object state;
+  private final String operationName;
+  private final long dueNanos;
+  // ring the lifecycle events were appended to, null if they are not recorded
+  private TaskEvents events;
+  private int eventMark;
+
+  /**
+   * @param parent span to propagate or null if the task is not traced
+   * @param state returned by the listener on submit
+   * @param delayNanos delay of scheduled tasks, queue wait is measured from the moment the task is
+   * due. Zero for tasks which are due right away.
+   */
+  InstrumentedTask(TracedExecutor executor, Span parent, Object state, String operationName,
+      long delayNanos) {
+    this.executor = executor;
+    this.parent = parent;
+    this.state = state;
+    this.operationName = operationName;
+    this.dueNanos = System.nanoTime() + delayNanos;
+  }
+
+  abstract Object task();
+
+  /**
+   * @return state returned by the listener on submit
+   */
+  Object state() {
+    return state;
+  }
+
+  /**
+   * @return true if the deadline of the task expired before it started
+   */
+  abstract boolean expired();
+
+  /**
+   * @return span the task runs in or null
+   */
+  Span start(long startNanos) {
+    long queueWaitNanos = queueWaitNanos(startNanos);
+    Span span = parent;
+    if (parent != null && executor.options.spanPerTask()) {
+      span = executor.tracer.buildSpan(operationName)
+          .asChildOf(parent)
+          .withTag(QUEUE_WAIT_TAG, queueWaitNanos)
+          .start();
+    }
+    if (executor.listener != null) {
+      executor.listener.onStart(task(), span, queueWaitNanos, state);
+    }
+    if (span != null && executor.options.taskEvents()) {
+      events = TaskEvents.current();
+      eventMark = events.start(dueNanos, startNanos);
+    }
+    return span;
+  }
+
+  Scope activate(Span span) {
+    if (span == parent) {
+      return Scopes.activateIfChanged(executor.tracer, span);
+    }
+    return executor.tracer.scopeManager().activate(span);
+  }
+
+  void finish(Scope scope, Span span, long startNanos, Throwable error) {
+    if (scope != null) {
+      scope.close();
+    }
+    long endNanos = System.nanoTime();
+    long runNanos = endNanos - startNanos;
+    if (events != null) {
+      events.end(eventMark, endNanos, span, expired(), error);
+      events = null;
+    }
+    if (span != parent) {
+      if (expired()) {
+        span.setTag(DeadlineRunnable.EXPIRED_TAG, true);
+      }
+      span.setTag(EXEC_TAG, runNanos);
+      if (error != null) {
+        Tags.ERROR.set(span, true);
+      }
+      span.finish();
+    }
+    if (executor.listener != null) {
+      executor.listener.onFinish(task(), span, queueWaitNanos(startNanos), runNanos, error,
+          state);
+    }
+  }
+
+  private long queueWaitNanos(long startNanos) {
+    return Math.max(0, startNanos - dueNanos);
+  }
+}
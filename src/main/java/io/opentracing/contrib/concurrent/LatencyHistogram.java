@@ -0,0 +1,101 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values, typically latencies in nanoseconds.
+ *
+ * <p>Buckets are laid out like in HdrHistogram: every power of two range is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so a recorded value is reported with a relative error
+ * of at most 1/{@value #SUB_BUCKETS} over the whole {@code long} range. Recording is a few
+ * arithmetic operations and an atomic increment, it never allocates.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_MASK = SUB_BUCKETS - 1;
+  static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * @param value value to record, negative values are recorded as zero
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(bucketIndex(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long currentMax;
+    while (value > (currentMax = max.get())) {
+      if (max.compareAndSet(currentMax, value)) {
+        break;
+      }
+    }
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : (double) sum.get() / currentCount;
+  }
+
+  /**
+   * @param percentile percentile between 0 and 100
+   * @return upper bound of the bucket containing the value at the given percentile, capped at
+   * {@link #max()}, or 0 if nothing was recorded
+   */
+  public long valueAtPercentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= target) {
+        return Math.min(bucketUpperBound(i), max());
+      }
+    }
+    return max();
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & SUB_BUCKET_MASK);
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    long lowerBound = (long) (SUB_BUCKETS + (index & SUB_BUCKET_MASK)) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
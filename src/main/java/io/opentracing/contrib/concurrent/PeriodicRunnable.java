@@ -0,0 +1,121 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.References;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.tag.Tags;
+
+/**
+ * Periodic task starting a new span for every run, see
+ * {@link TracedExecutorOptions.Builder#periodicSpans(boolean)}. The span follows from the span
+ * active when the task was scheduled; that span is usually finished long before the later runs.
+ *
+ * <p>Runs of one periodic task never overlap and the scheduled executor orders them, so the
+ * per-run state does not need to be volatile.
+ */
+class PeriodicRunnable implements Runnable {
+
+  static final String RUN_TAG = "periodic.run";
+  static final String LATENESS_TAG = "periodic.lateness.ns";
+  static final String DRIFT_TAG = "periodic.drift.ns";
+
+  private final Runnable delegate;
+  private final TracedExecutor executor;
+  private final SpanContext scheduledFrom;
+  private final Object state;
+  private final String operationName;
+  private final long periodNanos;
+  private final boolean fixedRate;
+
+  private long run;
+  private long dueNanos;
+  private long previousStartNanos;
+
+  /**
+   * @param scheduledFrom context of the span active when the task was scheduled or null
+   * @param state returned by the listener on submit, shared by all runs
+   * @param fixedRate true for {@code scheduleAtFixedRate}, false for
+   * {@code scheduleWithFixedDelay}
+   */
+  PeriodicRunnable(Runnable delegate, TracedExecutor executor, SpanContext scheduledFrom,
+      Object state, String operationName, long initialDelayNanos, long periodNanos,
+      boolean fixedRate) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.scheduledFrom = scheduledFrom;
+    this.state = state;
+    this.operationName = operationName;
+    this.periodNanos = periodNanos;
+    this.fixedRate = fixedRate;
+    this.dueNanos = System.nanoTime() + initialDelayNanos;
+  }
+
+  /**
+   * @return state returned by the listener on submit
+   */
+  Object state() {
+    return state;
+  }
+
+  @Override
+  public void run() {
+    long startNanos = System.nanoTime();
+    // negative if the executor ran the task early, which is within its clock granularity
+    long latenessNanos = startNanos - dueNanos;
+    Span span = startSpan(startNanos, latenessNanos);
+    if (executor.listener != null) {
+      executor.listener.onStart(delegate, span, Math.max(0, latenessNanos), state);
+    }
+
+    Scope scope = span == null ? null : executor.tracer.scopeManager().activate(span);
+    Throwable error = null;
+    try {
+      delegate.run();
+    } catch (RuntimeException e) {
+      error = e;
+      throw e;
+    } catch (Error e) {
+      error = e;
+      throw e;
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+      long endNanos = System.nanoTime();
+      if (span != null) {
+        span.setTag(InstrumentedTask.EXEC_TAG, endNanos - startNanos);
+        if (error != null) {
+          Tags.ERROR.set(span, true);
+        }
+        span.finish();
+      }
+      if (executor.listener != null) {
+        executor.listener.onFinish(delegate, span, Math.max(0, latenessNanos),
+            endNanos - startNanos, error, state);
+      }
+
+      run++;
+      previousStartNanos = startNanos;
+      // fixed rate runs are due relative to the schedule, fixed delay runs relative to the end
+      dueNanos = fixedRate ? dueNanos + periodNanos : endNanos + periodNanos;
+    }
+  }
+
+  private Span startSpan(long startNanos, long latenessNanos) {
+    if (scheduledFrom == null || run % executor.options.periodicSpanInterval() != 0) {
+      return null;
+    }
+    Span span = executor.tracer.buildSpan(operationName)
+        .ignoreActiveSpan()
+        .addReference(References.FOLLOWS_FROM, scheduledFrom)
+        .withTag(RUN_TAG, run)
+        .withTag(LATENESS_TAG, latenessNanos)
+        .start();
+    if (run > 0) {
+      // difference between the actual and the configured interval between two starts
+      span.setTag(DRIFT_TAG, startNanos - previousStartNanos - periodNanos);
+    }
+    return span;
+  }
+}
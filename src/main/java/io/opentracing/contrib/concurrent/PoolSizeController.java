@@ -0,0 +1,115 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ExecutorListener} resizing a {@link ThreadPoolExecutor} from the measured load. Finished
+ * tasks are aggregated over a time window; at the end of every window the pool is sized to the
+ * number of busy threads by Little's law (throughput times mean run time) plus headroom. If the
+ * mean queue wait exceeded the target the pool grows by a quarter at least, otherwise it shrinks by
+ * at most an eighth per window.
+ *
+ * <pre>
+ * ThreadPoolExecutor pool = new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS,
+ *     new LinkedBlockingQueue&lt;Runnable&gt;());
+ * PoolSizeController controller = new PoolSizeController(pool, 2, 64, 10, TimeUnit.MILLISECONDS);
+ * ExecutorService executorService = new TracedExecutorService(pool, tracer,
+ *     TracedExecutorOptions.builder().addListener(controller).build());
+ * </pre>
+ *
+ * Core and maximum pool size are both set to the target, the pool behaves as a fixed size pool.
+ * Adjustments run on the thread finishing the last task of a window, idle pools are not resized.
+ */
+public class PoolSizeController implements ExecutorListener {
+
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final double HEADROOM = 0.2;
+
+  private final ThreadPoolExecutor pool;
+  private final int minPoolSize;
+  private final int maxPoolSize;
+  private final long targetQueueWaitNanos;
+
+  private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+  private final AtomicLong finished = new AtomicLong();
+  private final AtomicLong runNanos = new AtomicLong();
+  private final AtomicLong queueWaitNanos = new AtomicLong();
+
+  /**
+   * @param targetQueueWait mean queue wait above which the pool grows
+   */
+  public PoolSizeController(ThreadPoolExecutor pool, int minPoolSize, int maxPoolSize,
+      long targetQueueWait, TimeUnit timeUnit) {
+    if (minPoolSize < 1 || maxPoolSize < minPoolSize) {
+      throw new IllegalArgumentException("invalid pool size bounds: " + minPoolSize + ", "
+          + maxPoolSize);
+    }
+    this.pool = pool;
+    this.minPoolSize = minPoolSize;
+    this.maxPoolSize = maxPoolSize;
+    this.targetQueueWaitNanos = timeUnit.toNanos(targetQueueWait);
+  }
+
+  @Override
+  public void onSubmit(Object task, Span span) {
+  }
+
+  @Override
+  public void onRejected(Object task, Span span) {
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos) {
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error) {
+    finished.incrementAndGet();
+    this.runNanos.addAndGet(runNanos);
+    this.queueWaitNanos.addAndGet(queueWaitNanos);
+
+    long start = windowStart.get();
+    long now = System.nanoTime();
+    // only the thread moving the window forward adjusts the pool
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      adjust(now - start, this.finished.getAndSet(0), this.runNanos.getAndSet(0),
+          this.queueWaitNanos.getAndSet(0));
+    }
+  }
+
+  void adjust(long windowNanos, long finished, long runNanos, long queueWaitNanos) {
+    int current = pool.getMaximumPoolSize();
+    int target = targetPoolSize(current, windowNanos, finished, runNanos, queueWaitNanos);
+    if (target > current) {
+      pool.setMaximumPoolSize(target);
+      pool.setCorePoolSize(target);
+    } else if (target < current) {
+      pool.setCorePoolSize(target);
+      pool.setMaximumPoolSize(target);
+    }
+  }
+
+  /**
+   * @param runNanos total run time of tasks finished in the window
+   * @param queueWaitNanos total queue wait of tasks finished in the window
+   */
+  int targetPoolSize(int current, long windowNanos, long finished, long runNanos,
+      long queueWaitNanos) {
+    if (finished == 0) {
+      return current;
+    }
+    // Little's law: busy threads = arrival rate * time in service
+    double busy = (double) runNanos / windowNanos;
+    int target = (int) Math.ceil(busy * (1 + HEADROOM));
+    if (queueWaitNanos / finished > targetQueueWaitNanos) {
+      target = Math.max(target, current + Math.max(1, current / 4));
+    } else {
+      target = Math.max(target, current - Math.max(1, current / 8));
+    }
+    return Math.max(minPoolSize, Math.min(maxPoolSize, target));
+  }
+}
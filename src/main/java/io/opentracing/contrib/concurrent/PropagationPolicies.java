@@ -0,0 +1,72 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+
+/**
+ * Built-in {@link PropagationPolicy} implementations.
+ */
+public final class PropagationPolicies {
+
+  private static final PropagationPolicy ALWAYS = new PropagationPolicy() {
+    @Override
+    public boolean propagate(Span span) {
+      return true;
+    }
+  };
+
+  private static final PropagationPolicy NEVER = new PropagationPolicy() {
+    @Override
+    public boolean propagate(Span span) {
+      return false;
+    }
+  };
+
+  private PropagationPolicies() {
+  }
+
+  /**
+   * @return policy propagating every span, same as not configuring a policy
+   */
+  public static PropagationPolicy always() {
+    return ALWAYS;
+  }
+
+  /**
+   * @return policy propagating no span, tasks are only measured by the configured listener
+   */
+  public static PropagationPolicy never() {
+    return NEVER;
+  }
+
+  /**
+   * Propagates a fixed ratio of traces. The decision is derived from the trace id, so all tasks of
+   * one trace are either propagated or not, on every executor using the same ratio.
+   *
+   * @param ratio ratio of propagated traces between 0 and 1
+   */
+  public static PropagationPolicy traceIdRatio(double ratio) {
+    if (ratio < 0 || ratio > 1) {
+      throw new IllegalArgumentException("ratio has to be between 0 and 1: " + ratio);
+    }
+    if (ratio == 1) {
+      return ALWAYS;
+    }
+    final long threshold = (long) (ratio * (1L << 32));
+    return new PropagationPolicy() {
+      @Override
+      public boolean propagate(Span span) {
+        return traceIdBucket(span.context().toTraceId()) < threshold;
+      }
+    };
+  }
+
+  /**
+   * @return uniformly spread value between 0 (inclusive) and 2^32 (exclusive)
+   */
+  static long traceIdBucket(String traceId) {
+    // spread the string hash, trace ids often differ in a few low order characters only
+    int hash = traceId.hashCode() * 0x9E3779B9;
+    hash ^= hash >>> 16;
+    return hash & 0xFFFFFFFFL;
+  }
+}
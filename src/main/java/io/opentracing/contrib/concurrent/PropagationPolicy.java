@@ -0,0 +1,27 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+
+/**
+ * Decides whether the span active at submit time is propagated to the task. Tasks whose span is not
+ * propagated are handed to the delegate untouched (or only measured if an {@link ExecutorListener}
+ * is configured) and run without an active span.
+ *
+ * <p>Typical use is to skip propagation of traces the tracer will drop anyway. OpenTracing does not
+ * expose the sampling decision, so the policy usually inspects the tracer specific
+ * {@link io.opentracing.SpanContext}, e.g. {@code ((JaegerSpanContext) span.context()).isSampled()}.
+ * Note that spans started by the task are then not connected to the submitting trace and tracers
+ * make a new sampling decision for them.
+ *
+ * @see PropagationPolicies
+ */
+public interface PropagationPolicy {
+
+  /**
+   * Called on the submitting thread for every traced submit, must be cheap and thread safe.
+   *
+   * @param span active or created span, never null
+   * @return true if the span should be propagated to the task
+   */
+  boolean propagate(Span span);
+}
@@ -0,0 +1,29 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Handles a task rejected by the delegate of a traced executor, like a
+ * {@link java.util.concurrent.RejectedExecutionHandler} for executors the tracing wrapper does not
+ * own. Applies to {@code execute} and {@code submit}; tasks of {@code invokeAll} and
+ * {@code invokeAny} are submitted by the delegate itself and rejections are only rethrown.
+ * {@link TracedScheduledExecutorService} does not accept a fallback.
+ *
+ * <p>The task is already wrapped, it activates the propagated span when it runs and reports to the
+ * configured {@link ExecutorListener}. Tasks returned by {@code submit} are wrapped into the
+ * {@link java.util.concurrent.Future} handed back to the caller.
+ *
+ * @see RejectionFallbacks
+ */
+public interface RejectionFallback {
+
+  /**
+   * Called on the submitting thread after the rejection was recorded.
+   *
+   * @param task traced task
+   * @param executor delegate which rejected the task
+   * @param e rejection, to be rethrown if the task can not be handled
+   */
+  void rejected(Runnable task, Executor executor, RejectedExecutionException e);
+}
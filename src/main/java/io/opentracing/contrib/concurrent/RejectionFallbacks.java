@@ -0,0 +1,68 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Built-in {@link RejectionFallback} implementations.
+ */
+public final class RejectionFallbacks {
+
+  private static final RejectionFallback CALLER_RUNS = new RejectionFallback() {
+    @Override
+    public void rejected(Runnable task, Executor executor, RejectedExecutionException e) {
+      if (executor instanceof ExecutorService && ((ExecutorService) executor).isShutdown()) {
+        throw e;
+      }
+      task.run();
+    }
+  };
+
+  private RejectionFallbacks() {
+  }
+
+  /**
+   * Runs the task on the submitting thread. The propagated span is usually the active one there,
+   * so no scope is activated. Like {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}
+   * it does not run tasks once the delegate is shut down, the rejection is rethrown instead.
+   */
+  public static RejectionFallback callerRuns() {
+    return CALLER_RUNS;
+  }
+
+  /**
+   * Re-submits the task to the delegate up to the given number of times, pausing the submitting
+   * thread before every attempt. The original rejection is rethrown if all attempts fail or the
+   * thread is interrupted.
+   *
+   * @param attempts number of retries, at least 1
+   * @param backoff pause before every retry
+   */
+  public static RejectionFallback retry(final int attempts, long backoff, TimeUnit timeUnit) {
+    if (attempts < 1) {
+      throw new IllegalArgumentException("attempts has to be positive: " + attempts);
+    }
+    final long backoffNanos = timeUnit.toNanos(backoff);
+    return new RejectionFallback() {
+      @Override
+      public void rejected(Runnable task, Executor executor, RejectedExecutionException e) {
+        for (int i = 0; i < attempts; i++) {
+          LockSupport.parkNanos(backoffNanos);
+          if (Thread.currentThread().isInterrupted()) {
+            break;
+          }
+          try {
+            executor.execute(task);
+            return;
+          } catch (RejectedExecutionException retryException) {
+            // try again
+          }
+        }
+        throw e;
+      }
+    };
+  }
+}
@@ -0,0 +1,28 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+
+/**
+ * Scope helpers shared by the traced tasks.
+ */
+final class Scopes {
+
+  private Scopes() {
+  }
+
+  /**
+   * Activates the span unless it is already the active span of the current thread, e.g. because
+   * the task runs on the thread which submitted it. A thread local lookup is cheaper than
+   * activating and closing a scope.
+   *
+   * @return scope to close or null if nothing was activated
+   */
+  static Scope activateIfChanged(Tracer tracer, Span span) {
+    if (span == null || tracer.activeSpan() == span) {
+      return null;
+    }
+    return tracer.scopeManager().activate(span);
+  }
+}
@@ -0,0 +1,20 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+
+/**
+ * Assigns a task to a group, e.g. the trace or the tenant it belongs to.
+ *
+ * @see TaskClassifiers
+ */
+public interface TaskClassifier {
+
+  /**
+   * Called once on the submitting thread for every task, must be cheap and thread safe.
+   *
+   * @param task submitted task, possibly wrapped by a traced executor
+   * @param span active span of the submitting thread or null
+   * @return group of the task, null for the default group
+   */
+  String classify(Object task, Span span);
+}
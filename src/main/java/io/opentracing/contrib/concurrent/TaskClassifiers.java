@@ -0,0 +1,55 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+
+/**
+ * Built-in {@link TaskClassifier} implementations.
+ */
+public final class TaskClassifiers {
+
+  private static final TaskClassifier TRACE_ID = new TaskClassifier() {
+    @Override
+    public String classify(Object task, Span span) {
+      return span != null ? span.context().toTraceId() : null;
+    }
+  };
+
+  private static final TaskClassifier TASK_CLASS = new TaskClassifier() {
+    @Override
+    public String classify(Object task, Span span) {
+      return task.getClass().getName();
+    }
+  };
+
+  private TaskClassifiers() {
+  }
+
+  /**
+   * @return classifier grouping tasks by their class name, i.e. by the code which submitted them
+   */
+  public static TaskClassifier taskClass() {
+    return TASK_CLASS;
+  }
+
+  /**
+   * @return classifier grouping tasks by the trace id of the active span
+   */
+  public static TaskClassifier traceId() {
+    return TRACE_ID;
+  }
+
+  /**
+   * @param key key of a {@link ContextSnapshot} entry, e.g. tenant id
+   * @return classifier grouping tasks by the entry of the current snapshot
+   */
+  public static TaskClassifier snapshotEntry(final String key) {
+    return new TaskClassifier() {
+      @Override
+      public String classify(Object task, Span span) {
+        ContextSnapshot snapshot = ContextSnapshot.current();
+        Object value = snapshot != null ? snapshot.get(key) : null;
+        return value != null ? value.toString() : null;
+      }
+    };
+  }
+}
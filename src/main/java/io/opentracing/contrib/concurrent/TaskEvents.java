@@ -0,0 +1,88 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread ring buffer of task lifecycle events, see
+ * {@link TracedExecutorOptions.Builder#taskEvents(boolean)}. A task appends its enqueue and start
+ * timestamps when it starts and its end timestamp when it completes, then flushes the three as one
+ * {@value #EVENT} log entry of the span it ran in. Nothing but the ring slots is written while the
+ * task runs. Tasks run inline by a task (e.g. on a direct executor) append to the same ring, if
+ * they wrapped around and overwrote the events of the outer task its entry is dropped.
+ */
+final class TaskEvents {
+
+  static final String EVENT = "task";
+  static final String EXPIRED_FIELD = "expired";
+  static final String ERROR_FIELD = "error.object";
+
+  // power of two, 256 timestamps per thread
+  static final int CAPACITY = 1 << 8;
+
+  private static final ThreadLocal<TaskEvents> EVENTS = new ThreadLocal<TaskEvents>() {
+    @Override
+    protected TaskEvents initialValue() {
+      return new TaskEvents();
+    }
+  };
+
+  private final long[] nanos = new long[CAPACITY];
+  // total number of events appended on this thread, the slot is next & (CAPACITY - 1)
+  private int next;
+
+  private TaskEvents() {
+  }
+
+  static TaskEvents current() {
+    return EVENTS.get();
+  }
+
+  /**
+   * @return mark of the enqueue event, to be passed to {@link #end}
+   */
+  int start(long enqueueNanos, long startNanos) {
+    int mark = next;
+    append(enqueueNanos);
+    append(startNanos);
+    return mark;
+  }
+
+  /**
+   * Appends the end event and logs the events of the task starting at {@code mark} to the span.
+   *
+   * @return false if the events were overwritten by other tasks on this thread or the span rejected
+   * the log entry
+   */
+  boolean end(int mark, long endNanos, Span span, boolean expired, Throwable error) {
+    append(endNanos);
+    if (next - mark > CAPACITY) {
+      return false;
+    }
+    long enqueueNanos = nanos[mark & (CAPACITY - 1)];
+    long startNanos = nanos[(mark + 1) & (CAPACITY - 1)];
+    Map<String, Object> fields = new HashMap<String, Object>(8);
+    fields.put("event", EVENT);
+    fields.put(InstrumentedTask.QUEUE_WAIT_TAG, Math.max(0, startNanos - enqueueNanos));
+    fields.put(InstrumentedTask.EXEC_TAG, endNanos - startNanos);
+    if (expired) {
+      fields.put(EXPIRED_FIELD, true);
+    }
+    if (error != null) {
+      fields.put(ERROR_FIELD, error);
+    }
+    try {
+      span.log(fields);
+    } catch (RuntimeException e) {
+      // the propagated span may already be finished by the submitter, events never fail the task
+      return false;
+    }
+    return true;
+  }
+
+  private void append(long timestampNanos) {
+    nanos[next & (CAPACITY - 1)] = timestampNanos;
+    next++;
+  }
+}
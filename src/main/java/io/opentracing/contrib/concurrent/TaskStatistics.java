@@ -0,0 +1,228 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import java.beans.ConstructorProperties;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ExecutorListener} aggregating counters and latency histograms per group of tasks, by
+ * default per task class, i.e. per code loading the executor. Tasks are classified once by a
+ * {@link TaskClassifier} on the submitting thread, the group is kept with the task for its start
+ * and finish.
+ *
+ * <pre>
+ * TaskStatistics statistics = new TaskStatistics();
+ * ExecutorService executorService = new TracedExecutorService(delegate, tracer,
+ *     TracedExecutorOptions.builder().addListener(statistics).build());
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(statistics,
+ *     new ObjectName("io.opentracing.contrib.concurrent:type=TaskStatistics,name=io"));
+ * </pre>
+ *
+ * The number of groups is bounded, tasks of groups beyond the limit are counted in group
+ * {@value #OTHER_GROUP}. Tasks without a group are counted in group {@value #DEFAULT_GROUP}.
+ */
+public class TaskStatistics implements ExecutorListener, TaskStatisticsMXBean {
+
+  public static final String DEFAULT_GROUP = "default";
+  public static final String OTHER_GROUP = "other";
+
+  private final TaskClassifier classifier;
+  private final int maxGroups;
+  private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<String, Group>();
+
+  public TaskStatistics() {
+    this(TaskClassifiers.taskClass(), 1000);
+  }
+
+  /**
+   * @param maxGroups maximum number of distinct groups
+   */
+  public TaskStatistics(TaskClassifier classifier, int maxGroups) {
+    if (maxGroups < 1) {
+      throw new IllegalArgumentException("maxGroups has to be positive: " + maxGroups);
+    }
+    this.classifier = classifier;
+    this.maxGroups = maxGroups;
+  }
+
+  @Override
+  public void onSubmit(Object task, Span span) {
+    onSubmitWithState(task, span);
+  }
+
+  @Override
+  public Object onSubmitWithState(Object task, Span span) {
+    Group group = group(task, span);
+    group.submitted.increment();
+    return group;
+  }
+
+  @Override
+  public void onRejected(Object task, Span span) {
+    onRejected(task, span, null);
+  }
+
+  @Override
+  public void onRejected(Object task, Span span, Object state) {
+    group(task, span, state).rejected.increment();
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos) {
+    onStart(task, span, queueWaitNanos, null);
+  }
+
+  @Override
+  public void onStart(Object task, Span span, long queueWaitNanos, Object state) {
+    group(task, span, state).queueWait.record(queueWaitNanos);
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error) {
+    onFinish(task, span, queueWaitNanos, runNanos, error, null);
+  }
+
+  @Override
+  public void onFinish(Object task, Span span, long queueWaitNanos, long runNanos,
+      Throwable error, Object state) {
+    Group group = group(task, span, state);
+    if (error == null) {
+      group.completed.increment();
+    } else {
+      group.failed.increment();
+    }
+    group.runTime.record(runNanos);
+  }
+
+  /**
+   * @return statistics per group sorted by group name
+   */
+  public Map<String, Snapshot> snapshot() {
+    Map<String, Snapshot> snapshot = new TreeMap<String, Snapshot>();
+    for (Map.Entry<String, Group> entry: groups.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return snapshot;
+  }
+
+  @Override
+  public Map<String, Snapshot> getStatistics() {
+    return snapshot();
+  }
+
+  /**
+   * @param state group the task was classified into on submit, classifies the task if missing,
+   * e.g. when the listener is called directly
+   */
+  private Group group(Object task, Span span, Object state) {
+    return state instanceof Group ? (Group) state : group(task, span);
+  }
+
+  private Group group(Object task, Span span) {
+    String name = classifier.classify(task, span);
+    if (name == null) {
+      name = DEFAULT_GROUP;
+    }
+    Group group = groups.get(name);
+    if (group != null) {
+      return group;
+    }
+    if (groups.size() >= maxGroups) {
+      name = OTHER_GROUP;
+      group = groups.get(name);
+      if (group != null) {
+        return group;
+      }
+    }
+    group = new Group();
+    Group existing = groups.putIfAbsent(name, group);
+    return existing != null ? existing : group;
+  }
+
+  private static final class Group {
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    private Snapshot snapshot() {
+      return new Snapshot(submitted.sum(), rejected.sum(), completed.sum(), failed.sum(),
+          queueWait.valueAtPercentile(50), queueWait.valueAtPercentile(99),
+          runTime.valueAtPercentile(50), runTime.valueAtPercentile(99), runTime.max());
+    }
+  }
+
+  /**
+   * Statistics of one group at the time of the snapshot, latencies in nanoseconds. Getters follow
+   * the JMX naming so that the snapshot maps to composite data.
+   */
+  public static final class Snapshot {
+    private final long submitted;
+    private final long rejected;
+    private final long completed;
+    private final long failed;
+    private final long queueWaitP50;
+    private final long queueWaitP99;
+    private final long runTimeP50;
+    private final long runTimeP99;
+    private final long runTimeMax;
+
+    @ConstructorProperties({"submitted", "rejected", "completed", "failed", "queueWaitP50",
+        "queueWaitP99", "runTimeP50", "runTimeP99", "runTimeMax"})
+    public Snapshot(long submitted, long rejected, long completed, long failed, long queueWaitP50,
+        long queueWaitP99, long runTimeP50, long runTimeP99, long runTimeMax) {
+      this.submitted = submitted;
+      this.rejected = rejected;
+      this.completed = completed;
+      this.failed = failed;
+      this.queueWaitP50 = queueWaitP50;
+      this.queueWaitP99 = queueWaitP99;
+      this.runTimeP50 = runTimeP50;
+      this.runTimeP99 = runTimeP99;
+      this.runTimeMax = runTimeMax;
+    }
+
+    public long getSubmitted() {
+      return submitted;
+    }
+
+    public long getRejected() {
+      return rejected;
+    }
+
+    public long getCompleted() {
+      return completed;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    public long getQueueWaitP50() {
+      return queueWaitP50;
+    }
+
+    public long getQueueWaitP99() {
+      return queueWaitP99;
+    }
+
+    public long getRunTimeP50() {
+      return runTimeP50;
+    }
+
+    public long getRunTimeP99() {
+      return runTimeP99;
+    }
+
+    public long getRunTimeMax() {
+      return runTimeMax;
+    }
+  }
+}
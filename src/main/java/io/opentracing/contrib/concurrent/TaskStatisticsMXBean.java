@@ -0,0 +1,14 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TaskStatistics}.
+ */
+public interface TaskStatisticsMXBean {
+
+  /**
+   * @return statistics per task group
+   */
+  Map<String, TaskStatistics.Snapshot> getStatistics();
+}
@@ -0,0 +1,224 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Blocking queue which carries the active span of the producer to the consumer of each element.
+ *
+ * <p>Producers use the plain {@code add}/{@code offer}/{@code put} methods, the span active at that
+ * time is stored with the element. Consumers process elements with {@link #take(Consumer)},
+ * {@link #poll(long, TimeUnit, Consumer)} or {@link #drainTo(Consumer, int)}, which run the
+ * consumer in the span of the element. The plain {@code take}/{@code poll}/{@code drainTo} methods
+ * return the elements without their span.
+ *
+ * <pre>
+ * TracedBlockingQueue&lt;Event&gt; queue =
+ *     new TracedBlockingQueue&lt;Event&gt;(new ArrayBlockingQueue&lt;Object&gt;(1024), tracer);
+ * // producer
+ * queue.put(event);
+ * // consumer
+ * queue.drainTo(handler, 64);
+ * </pre>
+ *
+ * Elements put without an active span are stored as is, elements with a span in a holder with two
+ * references. The delegate is typed {@code Object} because it stores both.
+ */
+public class TracedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private final BlockingQueue<Object> delegate;
+  private final Tracer tracer;
+
+  /**
+   * @param delegate empty queue storing the elements, should not be accessed directly
+   */
+  public TracedBlockingQueue(BlockingQueue<Object> delegate, Tracer tracer) {
+    this.delegate = delegate;
+    this.tracer = tracer;
+  }
+
+  @Override
+  public boolean offer(E element) {
+    return delegate.offer(wrap(element));
+  }
+
+  @Override
+  public void put(E element) throws InterruptedException {
+    delegate.put(wrap(element));
+  }
+
+  @Override
+  public boolean offer(E element, long timeout, TimeUnit timeUnit) throws InterruptedException {
+    return delegate.offer(wrap(element), timeout, timeUnit);
+  }
+
+  @Override
+  public E poll() {
+    return unwrap(delegate.poll());
+  }
+
+  @Override
+  public E peek() {
+    return unwrap(delegate.peek());
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    return unwrap(delegate.take());
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+    return unwrap(delegate.poll(timeout, timeUnit));
+  }
+
+  /**
+   * Waits for an element and passes it to the consumer in the span it was put with.
+   */
+  public void take(Consumer<? super E> consumer) throws InterruptedException {
+    process(delegate.take(), consumer);
+  }
+
+  /**
+   * Waits for an element and passes it to the consumer in the span it was put with.
+   *
+   * @return false if no element became available in time
+   */
+  public boolean poll(long timeout, TimeUnit timeUnit, Consumer<? super E> consumer)
+      throws InterruptedException {
+    Object element = delegate.poll(timeout, timeUnit);
+    if (element == null) {
+      return false;
+    }
+    process(element, consumer);
+    return true;
+  }
+
+  /**
+   * Removes available elements one by one and passes them to the consumer, each in the span it was
+   * put with. Consecutive elements put with the same span are processed in one activation. If the
+   * consumer throws, the element it failed on is removed and the following ones stay in the queue.
+   *
+   * @return number of removed elements
+   */
+  public int drainTo(Consumer<? super E> consumer, int maxElements) {
+    int count = 0;
+    Span activeSpan = null;
+    Scope scope = null;
+    try {
+      Object element;
+      while (count < maxElements && (element = delegate.poll()) != null) {
+        count++;
+        Span span = span(element);
+        if (span != activeSpan) {
+          if (scope != null) {
+            scope.close();
+          }
+          scope = Scopes.activateIfChanged(tracer, span);
+          activeSpan = span;
+        }
+        consumer.accept(unwrap(element));
+      }
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return delegate.remainingCapacity();
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> collection) {
+    return drainTo(collection, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> collection, int maxElements) {
+    if (collection == this) {
+      throw new IllegalArgumentException();
+    }
+    int count = 0;
+    Object element;
+    while (count < maxElements && (element = delegate.poll()) != null) {
+      collection.add(unwrap(element));
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    final Iterator<Object> iterator = delegate.iterator();
+    return new Iterator<E>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return unwrap(iterator.next());
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  private void process(Object element, Consumer<? super E> consumer) {
+    Scope scope = Scopes.activateIfChanged(tracer, span(element));
+    try {
+      consumer.accept(unwrap(element));
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  private Object wrap(E element) {
+    if (element == null) {
+      throw new NullPointerException();
+    }
+    Span span = tracer.activeSpan();
+    return span == null ? element : new Traced(element, span);
+  }
+
+  @SuppressWarnings("unchecked")
+  private E unwrap(Object element) {
+    return (E) (element instanceof Traced ? ((Traced) element).element : element);
+  }
+
+  private static Span span(Object element) {
+    return element instanceof Traced ? ((Traced) element).span : null;
+  }
+
+  private static final class Traced {
+    private final Object element;
+    private final Span span;
+
+    private Traced(Object element, Span span) {
+      this.element = element;
+      this.span = span;
+    }
+  }
+}
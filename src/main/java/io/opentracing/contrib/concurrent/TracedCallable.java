@@ -8,6 +8,9 @@ import java.util.concurrent.Callable;
 
 /**
  * @author Pavol Loffay
+ *
+ * The span is not activated again if it is already active on the thread running the task, e.g.
+ * with caller-runs rejection policies or same-thread executors.
  */
 public class TracedCallable<V> implements Callable<V> {
 
@@ -27,7 +30,7 @@ public class TracedCallable<V> implements Callable<V> {
 
   @Override
   public V call() throws Exception {
-    Scope scope = span == null ? null : tracer.scopeManager().activate(span);
+    Scope scope = Scopes.activateIfChanged(tracer, span);
     try {
       return delegate.call();
     } finally {
@@ -0,0 +1,78 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+/**
+ * Read-only view of a collection of callables which wraps each element into
+ * {@link TracedCallable}, or the task of a {@link TracedExecutor}, as it is iterated. Used by
+ * invokeAll/invokeAny instead of copying the whole batch: the view itself is the only per-batch
+ * allocation, and callables the delegate never iterates to (e.g. after invokeAny completed) are
+ * never wrapped.
+ */
+class TracedCallableCollection<T> extends AbstractCollection<Callable<T>> {
+
+  private final Collection<? extends Callable<T>> delegate;
+  private final TracedExecutor executor;
+  private final Tracer tracer;
+  private final Span span;
+  private final String operationName;
+
+  TracedCallableCollection(Collection<? extends Callable<T>> delegate, TracedExecutor executor,
+      Span span, String operationName) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.tracer = null;
+    this.span = span;
+    this.operationName = operationName;
+  }
+
+  /**
+   * View wrapping each callable into a {@link TracedCallable} running in the span.
+   */
+  TracedCallableCollection(Collection<? extends Callable<T>> delegate, Tracer tracer, Span span) {
+    this.delegate = delegate;
+    this.executor = null;
+    this.tracer = tracer;
+    this.span = span;
+    this.operationName = null;
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  @Override
+  public Iterator<Callable<T>> iterator() {
+    final Iterator<? extends Callable<T>> iterator = delegate.iterator();
+    return new Iterator<Callable<T>>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Callable<T> next() {
+        if (executor == null) {
+          return new TracedCallable<T>(iterator.next(), tracer, span);
+        }
+        return executor.toTraced(iterator.next(), span, operationName);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
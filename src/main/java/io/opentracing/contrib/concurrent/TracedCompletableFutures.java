@@ -0,0 +1,79 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Propagates span through whole {@link CompletableFuture} chains.
+ *
+ * <p>The span is captured once, when the chain starts, and bound to a stage executor passed to
+ * every async stage of the chain. Stages do not look up the active span on submit and a stage which
+ * runs on a thread where the span is already active (e.g. a stage completed inline by the previous
+ * stage, or a same-thread executor) does not activate it again.
+ *
+ * <pre>
+ * Executor stages = TracedCompletableFutures.stageExecutor(executor, tracer);
+ * CompletableFuture.supplyAsync(supplier, stages)
+ *     .thenApplyAsync(function, stages)
+ *     .thenComposeAsync(compose, stages);
+ * </pre>
+ */
+public final class TracedCompletableFutures {
+
+  private TracedCompletableFutures() {
+  }
+
+  /**
+   * @return executor running every stage in the span active now, or the delegate itself if there
+   * is no active span
+   */
+  public static Executor stageExecutor(Executor delegate, Tracer tracer) {
+    return stageExecutor(delegate, tracer, tracer.activeSpan());
+  }
+
+  /**
+   * @return executor running every stage in the given span, or the delegate itself if the span is
+   * null
+   */
+  public static Executor stageExecutor(Executor delegate, Tracer tracer, Span span) {
+    return span == null ? delegate : new StageExecutor(delegate, tracer, span);
+  }
+
+  /**
+   * Same as {@link CompletableFuture#supplyAsync(Supplier, Executor)} with the supplier running in
+   * the active span.
+   */
+  public static <U> CompletableFuture<U> supplyAsync(Supplier<U> supplier, Executor executor,
+      Tracer tracer) {
+    return CompletableFuture.supplyAsync(supplier, stageExecutor(executor, tracer));
+  }
+
+  /**
+   * Same as {@link CompletableFuture#runAsync(Runnable, Executor)} with the runnable running in the
+   * active span.
+   */
+  public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor,
+      Tracer tracer) {
+    return CompletableFuture.runAsync(runnable, stageExecutor(executor, tracer));
+  }
+
+  static class StageExecutor implements Executor {
+    private final Executor delegate;
+    private final Tracer tracer;
+    private final Span span;
+
+    StageExecutor(Executor delegate, Tracer tracer, Span span) {
+      this.delegate = delegate;
+      this.tracer = tracer;
+      this.span = span;
+    }
+
+    @Override
+    public void execute(Runnable stage) {
+      delegate.execute(new TracedRunnable(stage, tracer, span));
+    }
+  }
+}
@@ -2,7 +2,13 @@ package io.opentracing.contrib.concurrent;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Executor which propagates span from parent thread to submitted {@link Runnable}.
@@ -12,38 +18,246 @@ import java.util.concurrent.Executor;
  */
 public class TracedExecutor implements Executor {
 
+  /**
+   * Event logged on the active or created span when the delegate rejects a task.
+   */
+  public static final String REJECTED_EVENT = "rejected";
+
   protected final Tracer tracer;
+  protected final boolean traceWithActiveSpanOnly;
+  final TracedExecutorOptions options;
+  final ExecutorListener listener;
+  /**
+   * True if tasks submitted without an active span are handed to the delegate untouched.
+   */
+  final boolean passThroughUntraced;
+  /**
+   * True if tasks are wrapped even if they do not propagate any span.
+   */
+  final boolean instrumented;
+  private final PropagationPolicy propagationPolicy;
+  private final RejectionFallback rejectionFallback;
+  private final boolean propagateDeadline;
+  private final AtomicLong rejectedTasks = new AtomicLong();
   private final Executor delegate;
-  private final boolean traceWithActiveSpanOnly;
 
   public TracedExecutor(Executor executor, Tracer tracer) {
     this(executor, tracer, true);
   }
 
   public TracedExecutor(Executor executor, Tracer tracer, boolean traceWithActiveSpanOnly) {
+    this(executor, tracer, TracedExecutorOptions.of(traceWithActiveSpanOnly));
+  }
+
+  public TracedExecutor(Executor executor, Tracer tracer, TracedExecutorOptions options) {
     this.delegate = executor;
     this.tracer = tracer;
-    this.traceWithActiveSpanOnly = traceWithActiveSpanOnly;
+    this.options = options;
+    this.traceWithActiveSpanOnly = options.traceWithActiveSpanOnly();
+    this.listener = options.listener();
+    this.rejectionFallback = options.rejectionFallback();
+    this.propagateDeadline = options.propagateDeadline();
+    this.passThroughUntraced = traceWithActiveSpanOnly && listener == null
+        && rejectionFallback == null && !propagateDeadline;
+    this.instrumented = options.spanPerTask() || options.taskEvents() || listener != null;
+    this.propagationPolicy = options.propagationPolicy();
   }
 
   @Override
   public void execute(Runnable runnable) {
-    Span span = createSpan("execute");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      delegate.execute(runnable);
+      return;
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("execute");
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      delegate.execute(toActivate == null ? runnable : new TracedRunnable(runnable, tracer, toActivate));
+      traced = toTraced(runnable, span, "execute");
+      delegate.execute(traced);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, traced);
+      fallback(traced, e);
     } finally {
-      // close the span if created
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
   }
 
+  Runnable toTraced(Runnable runnable, Span span, String operationName) {
+    return toTraced(runnable, span, operationName, 0);
+  }
+
+  /**
+   * @param span active or created span, null if there is none
+   * @param delayNanos delay before the task is due, not counted as queue wait
+   */
+  Runnable toTraced(Runnable runnable, Span span, String operationName, long delayNanos) {
+    return toTraced(runnable, span, operationName, delayNanos, deadline());
+  }
+
+  /**
+   * @param deadline deadline checked when the task is dequeued or null
+   */
+  Runnable toTraced(Runnable runnable, Span span, String operationName, long delayNanos,
+      Deadline deadline) {
+    span = propagated(span);
+    Runnable task = deadline == null ? runnable : new DeadlineRunnable(runnable, deadline);
+    if (!instrumented) {
+      return span == null ? task : new TracedRunnable(task, tracer, span);
+    }
+    Object state = listener == null ? null : listener.onSubmitWithState(runnable, span);
+    return new InstrumentedRunnable(task, this, span, state, operationName, delayNanos);
+  }
+
+  <T> Callable<T> toTraced(Callable<T> callable, Span span, String operationName) {
+    return toTraced(callable, span, operationName, 0);
+  }
+
+  <T> Callable<T> toTraced(Callable<T> callable, Span span, String operationName, long delayNanos) {
+    Deadline deadline = deadline();
+    Callable<T> task = deadline == null ? callable
+        : new DeadlineCallable<T>(callable, callable, deadline);
+    return toTraced(task, callable, span, operationName, delayNanos);
+  }
+
+  /**
+   * Wraps a runnable submitted for a future into a callable if a deadline applies, so that the
+   * future of a skipped runnable fails with {@link java.util.concurrent.TimeoutException} like the
+   * future of a callable.
+   *
+   * @return traced callable or null if there is no deadline
+   */
+  <T> Callable<T> toTracedWithDeadline(Runnable runnable, T result, Span span,
+      String operationName) {
+    return toTracedWithDeadline(runnable, result, span, operationName, 0);
+  }
+
+  /**
+   * @param delayNanos delay before the task is due, not counted as queue wait
+   */
+  <T> Callable<T> toTracedWithDeadline(Runnable runnable, T result, Span span,
+      String operationName, long delayNanos) {
+    Deadline deadline = deadline();
+    if (deadline == null) {
+      return null;
+    }
+    Callable<T> task =
+        new DeadlineCallable<T>(Executors.callable(runnable, result), runnable, deadline);
+    return toTraced(task, runnable, span, operationName, delayNanos);
+  }
+
+  private <T> Callable<T> toTraced(Callable<T> task, Object submitted, Span span,
+      String operationName, long delayNanos) {
+    span = propagated(span);
+    if (!instrumented) {
+      return span == null ? task : new TracedCallable<T>(task, tracer, span);
+    }
+    Object state = listener == null ? null : listener.onSubmitWithState(submitted, span);
+    return new InstrumentedCallable<T>(task, this, span, state, operationName, delayNanos);
+  }
+
+  /**
+   * @return the span if it should be propagated to the task, null otherwise
+   */
+  Span propagated(Span span) {
+    if (span == null || propagationPolicy == null || propagationPolicy.propagate(span)) {
+      return span;
+    }
+    return null;
+  }
+
+  /**
+   * @return deadline to propagate to the task or null
+   */
+  Deadline deadline() {
+    return propagateDeadline ? Deadline.current() : null;
+  }
+
+  /**
+   * Creates parent span for a submit made without an active span.
+   *
+   * @return the new span or null if traceWithActiveSpanOnly = true
+   */
   Span createSpan(String operationName) {
-    if (tracer.activeSpan() == null && !traceWithActiveSpanOnly) {
-      return tracer.buildSpan(operationName).start();
+    if (traceWithActiveSpanOnly) {
+      return null;
+    }
+    return tracer.buildSpan(operationName).start();
+  }
+
+  /**
+   * @return number of tasks rejected by the delegate, including tasks handled by the
+   * {@link RejectionFallback}. Tasks handed to the delegate untouched are not counted.
+   */
+  public long rejectedTasks() {
+    return rejectedTasks.get();
+  }
+
+  /**
+   * Records rejection of a task handled by the wrapper.
+   *
+   * @param span active or created span, null if there is none
+   */
+  void onRejected(Object task, Span span) {
+    onRejected(task, span, null);
+  }
+
+  /**
+   * Records rejection of a task handled by the wrapper.
+   *
+   * @param span active or created span, null if there is none
+   * @param traced the task as wrapped on submit, carries the state of the listener
+   */
+  void onRejected(Object task, Span span, Object traced) {
+    rejectedTasks.incrementAndGet();
+    if (span != null) {
+      span.log(REJECTED_EVENT);
+    }
+    if (listener != null) {
+      listener.onRejected(task, span, listenerState(traced));
+    }
+  }
+
+  /**
+   * @return state returned by the listener on submit of the wrapped task or null
+   */
+  private static Object listenerState(Object traced) {
+    if (traced instanceof InstrumentedTask) {
+      return ((InstrumentedTask) traced).state();
+    }
+    if (traced instanceof PeriodicRunnable) {
+      return ((PeriodicRunnable) traced).state();
     }
     return null;
   }
+
+  /**
+   * Hands a rejected execute to the {@link RejectionFallback}.
+   *
+   * @throws RejectedExecutionException if there is no fallback or it rejected the task as well
+   */
+  void fallback(Runnable traced, RejectedExecutionException e) {
+    if (rejectionFallback == null) {
+      throw e;
+    }
+    rejectionFallback.rejected(traced, delegate, e);
+  }
+
+  /**
+   * Hands a rejected submit to the {@link RejectionFallback}.
+   *
+   * @return the future if the fallback accepted it
+   * @throws RejectedExecutionException if there is no fallback or it rejected the task as well
+   */
+  <T> Future<T> fallback(RunnableFuture<T> future, RejectedExecutionException e) {
+    if (rejectionFallback == null) {
+      throw e;
+    }
+    rejectionFallback.rejected(future, delegate, e);
+    return future;
+  }
 }
@@ -0,0 +1,240 @@
+package io.opentracing.contrib.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of traced executors. Defaults match the plain constructors: only tasks submitted with an
+ * active span are traced and the span is propagated as is.
+ *
+ * <pre>
+ * TracedExecutorOptions options = TracedExecutorOptions.builder()
+ *     .spanPerTask(true)
+ *     .build();
+ * ExecutorService executorService = new TracedExecutorService(delegate, tracer, options);
+ * </pre>
+ */
+public final class TracedExecutorOptions {
+
+  static final TracedExecutorOptions DEFAULT = builder().build();
+  static final TracedExecutorOptions CREATE_SPAN = builder().traceWithActiveSpanOnly(false).build();
+
+  private final boolean traceWithActiveSpanOnly;
+  private final boolean spanPerTask;
+  private final boolean taskEvents;
+  private final boolean periodicSpans;
+  private final int periodicSpanInterval;
+  private final ExecutorListener listener;
+  private final PropagationPolicy propagationPolicy;
+  private final RejectionFallback rejectionFallback;
+  private final boolean propagateDeadline;
+
+  private TracedExecutorOptions(Builder builder) {
+    this.traceWithActiveSpanOnly = builder.traceWithActiveSpanOnly;
+    this.spanPerTask = builder.spanPerTask;
+    this.taskEvents = builder.taskEvents;
+    this.periodicSpans = builder.periodicSpans;
+    this.periodicSpanInterval = builder.periodicSpanInterval;
+    this.listener = CompositeExecutorListener.of(builder.listeners);
+    this.propagationPolicy = builder.propagationPolicy;
+    this.rejectionFallback = builder.rejectionFallback;
+    this.propagateDeadline = builder.propagateDeadline;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  static TracedExecutorOptions of(boolean traceWithActiveSpanOnly) {
+    return traceWithActiveSpanOnly ? DEFAULT : CREATE_SPAN;
+  }
+
+  /**
+   * @return copy of these options which propagates neither the span nor the deadline to the tasks,
+   * for executors whose tasks activate spans themselves and serve work of many submits
+   */
+  TracedExecutorOptions withoutPropagation() {
+    Builder builder = builder()
+        .traceWithActiveSpanOnly(traceWithActiveSpanOnly)
+        .spanPerTask(spanPerTask)
+        .taskEvents(taskEvents)
+        .periodicSpans(periodicSpans)
+        .periodicSpanInterval(periodicSpanInterval)
+        .propagationPolicy(PropagationPolicies.never())
+        .rejectionFallback(rejectionFallback);
+    if (listener != null) {
+      builder.addListener(listener);
+    }
+    return builder.build();
+  }
+
+  public boolean traceWithActiveSpanOnly() {
+    return traceWithActiveSpanOnly;
+  }
+
+  public boolean spanPerTask() {
+    return spanPerTask;
+  }
+
+  public boolean taskEvents() {
+    return taskEvents;
+  }
+
+  public boolean periodicSpans() {
+    return periodicSpans;
+  }
+
+  public int periodicSpanInterval() {
+    return periodicSpanInterval;
+  }
+
+  /**
+   * @return listener notified about task lifecycle or null if there is none
+   */
+  public ExecutorListener listener() {
+    return listener;
+  }
+
+  /**
+   * @return policy deciding which spans are propagated or null if all are
+   */
+  public PropagationPolicy propagationPolicy() {
+    return propagationPolicy;
+  }
+
+  /**
+   * @return fallback for tasks rejected by the delegate or null if rejections are rethrown
+   */
+  public RejectionFallback rejectionFallback() {
+    return rejectionFallback;
+  }
+
+  public boolean propagateDeadline() {
+    return propagateDeadline;
+  }
+
+  public static final class Builder {
+    private boolean traceWithActiveSpanOnly = true;
+    private boolean spanPerTask;
+    private boolean taskEvents;
+    private boolean periodicSpans;
+    private int periodicSpanInterval = 1;
+    private final List<ExecutorListener> listeners = new ArrayList<ExecutorListener>();
+    private PropagationPolicy propagationPolicy;
+    private RejectionFallback rejectionFallback;
+    private boolean propagateDeadline;
+
+    private Builder() {
+    }
+
+    /**
+     * @param traceWithActiveSpanOnly if false a parent span is created for submits made without an
+     * active span. Default true.
+     */
+    public Builder traceWithActiveSpanOnly(boolean traceWithActiveSpanOnly) {
+      this.traceWithActiveSpanOnly = traceWithActiveSpanOnly;
+      return this;
+    }
+
+    /**
+     * @param spanPerTask if true every traced task runs in its own child span tagged with
+     * {@code queue.wait.ns} (nanoseconds between submit and start) and
+     * {@code exec.ns} (nanoseconds the task ran). Default false, tasks run
+     * directly in the propagated span.
+     */
+    public Builder spanPerTask(boolean spanPerTask) {
+      this.spanPerTask = spanPerTask;
+      return this;
+    }
+
+    /**
+     * @param taskEvents if true the enqueue, start and end events of every traced task are
+     * appended to a ring buffer of the worker thread and flushed at completion as one {@code task}
+     * log entry, with {@code queue.wait.ns} and {@code exec.ns}, of the span the task ran in. No
+     * span is created. Without {@link #spanPerTask(boolean)} the entry goes to the propagated
+     * span, it is dropped if the tracer rejects it, e.g. because the submitter already finished
+     * the span. Default false.
+     */
+    public Builder taskEvents(boolean taskEvents) {
+      this.taskEvents = taskEvents;
+      return this;
+    }
+
+    /**
+     * @param periodicSpans if true every run of a task scheduled at fixed rate or with fixed delay
+     * starts a new span which follows from the span active when the task was scheduled. The span
+     * is tagged with {@code periodic.run} (run number from 0), {@code periodic.lateness.ns}
+     * (nanoseconds between the time the run was due and its start), {@code periodic.drift.ns}
+     * (actual minus configured interval between starts of two consecutive runs, with fixed delay
+     * it includes the run time) and {@code exec.ns}. Runs are also reported to the listener. Default
+     * false, every run is executed directly in the span active when the task was scheduled.
+     */
+    public Builder periodicSpans(boolean periodicSpans) {
+      this.periodicSpans = periodicSpans;
+      return this;
+    }
+
+    /**
+     * @param periodicSpanInterval with {@link #periodicSpans(boolean)} a span is started for every
+     * n-th run only, other runs are executed without an active span. Default 1.
+     */
+    public Builder periodicSpanInterval(int periodicSpanInterval) {
+      if (periodicSpanInterval < 1) {
+        throw new IllegalArgumentException("periodicSpanInterval has to be positive: "
+            + periodicSpanInterval);
+      }
+      this.periodicSpanInterval = periodicSpanInterval;
+      return this;
+    }
+
+    /**
+     * Adds listener notified about submitted, rejected, started and finished tasks, e.g.
+     * {@link ExecutorMetrics}. With a listener every task is wrapped, also tasks submitted without
+     * an active span. Listeners are notified in the order they were added.
+     */
+    public Builder addListener(ExecutorListener listener) {
+      if (listener == null) {
+        throw new NullPointerException("listener");
+      }
+      listeners.add(listener);
+      return this;
+    }
+
+    /**
+     * @param propagationPolicy policy deciding which spans are propagated to tasks, e.g. only
+     * sampled ones. Default null, every span is propagated.
+     */
+    public Builder propagationPolicy(PropagationPolicy propagationPolicy) {
+      this.propagationPolicy = propagationPolicy;
+      return this;
+    }
+
+    /**
+     * @param rejectionFallback fallback for tasks rejected by the delegate, e.g.
+     * {@link RejectionFallbacks#callerRuns()}. Every rejection is still counted, logged on the span
+     * and reported to the listener. With a fallback every task is handled by the wrapper, also
+     * tasks submitted without an active span. Default null, the rejection is rethrown.
+     */
+    public Builder rejectionFallback(RejectionFallback rejectionFallback) {
+      this.rejectionFallback = rejectionFallback;
+      return this;
+    }
+
+    /**
+     * @param propagateDeadline if true tasks carry the {@link Deadline} current at submit time.
+     * Tasks submitted for a future fail with {@link java.util.concurrent.TimeoutException} if
+     * they are dequeued after the deadline. Executed runnables still run, as their outcome is owned
+     * by the caller, unless they are a {@link java.util.concurrent.RunnableFuture}, which is
+     * cancelled. The span the task would run in is tagged with {@code expired}. Timeouts of timed invokeAll/invokeAny are shortened to the deadline.
+     * Periodic tasks are not affected. Default false.
+     */
+    public Builder propagateDeadline(boolean propagateDeadline) {
+      this.propagateDeadline = propagateDeadline;
+      return this;
+    }
+
+    public TracedExecutorOptions build() {
+      return new TracedExecutorOptions(this);
+    }
+  }
+}
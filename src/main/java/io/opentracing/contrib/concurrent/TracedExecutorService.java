@@ -2,13 +2,14 @@ package io.opentracing.contrib.concurrent;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -32,6 +33,12 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
     this.delegate = delegate;
   }
 
+  public TracedExecutorService(ExecutorService delegate, Tracer tracer,
+      TracedExecutorOptions options) {
+    super(delegate, tracer, options);
+    this.delegate = delegate;
+  }
+
   @Override
   public void shutdown() {
     delegate.shutdown();
@@ -59,13 +66,22 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
 
   @Override
   public <T> Future<T> submit(Callable<T> callable) {
-    Span span = createSpan("submit");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.submit(callable);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("submit");
+    Callable<T> traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.submit(toActivate == null ? callable :
-          new TracedCallable<T>(callable, tracer, toActivate));
+      traced = toTraced(callable, span, "submit");
+      return delegate.submit(traced);
+    } catch (RejectedExecutionException e) {
+      onRejected(callable, span, traced);
+      return fallback(new FutureTask<T>(traced), e);
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -73,13 +89,28 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
 
   @Override
   public <T> Future<T> submit(Runnable runnable, T t) {
-    Span span = createSpan("submit");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.submit(runnable, t);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("submit");
+    Callable<T> tracedWithDeadline = null;
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.submit(toActivate == null ? runnable :
-          new TracedRunnable(runnable, tracer, toActivate), t);
+      tracedWithDeadline = toTracedWithDeadline(runnable, t, span, "submit");
+      if (tracedWithDeadline != null) {
+        return delegate.submit(tracedWithDeadline);
+      }
+      traced = toTraced(runnable, span, "submit");
+      return delegate.submit(traced, t);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, tracedWithDeadline != null ? tracedWithDeadline : traced);
+      return fallback(tracedWithDeadline != null ? new FutureTask<T>(tracedWithDeadline)
+          : new FutureTask<T>(traced, t), e);
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -87,13 +118,28 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
 
   @Override
   public Future<?> submit(Runnable runnable) {
-    Span span = createSpan("submit");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.submit(runnable);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("submit");
+    Callable<Object> tracedWithDeadline = null;
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.submit(toActivate == null ? runnable :
-          new TracedRunnable(runnable, tracer, toActivate));
+      tracedWithDeadline = toTracedWithDeadline(runnable, null, span, "submit");
+      if (tracedWithDeadline != null) {
+        return delegate.submit(tracedWithDeadline);
+      }
+      traced = toTraced(runnable, span, "submit");
+      return delegate.submit(traced);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, tracedWithDeadline != null ? tracedWithDeadline : traced);
+      return fallback(tracedWithDeadline != null ? new FutureTask<Object>(tracedWithDeadline)
+          : new FutureTask<Object>(traced, null), e);
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -102,12 +148,20 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
   @Override
   public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> collection)
       throws InterruptedException {
-    Span span = createSpan("invokeAll");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.invokeAll(collection);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("invokeAll");
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.invokeAll(toTraced(collection, toActivate));
+      return delegate.invokeAll(toTraced(collection, span, "invokeAll"));
+    } catch (RejectedExecutionException e) {
+      onRejected(collection, span);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -116,12 +170,25 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
   @Override
   public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> collection, long l,
       TimeUnit timeUnit) throws InterruptedException {
-    Span span = createSpan("invokeAll");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.invokeAll(collection, l, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("invokeAll");
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.invokeAll(toTraced(collection, toActivate), l, timeUnit);
+      Deadline deadline = deadline();
+      if (deadline != null) {
+        return delegate.invokeAll(toTraced(collection, span, "invokeAll"),
+            deadline.clamp(l, timeUnit), TimeUnit.NANOSECONDS);
+      }
+      return delegate.invokeAll(toTraced(collection, span, "invokeAll"), l, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(collection, span);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -130,12 +197,20 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
   @Override
   public <T> T invokeAny(Collection<? extends Callable<T>> collection)
       throws InterruptedException, ExecutionException {
-    Span span = createSpan("invokeAny");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.invokeAny(collection);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("invokeAny");
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.invokeAny(toTraced(collection, toActivate));
+      return delegate.invokeAny(toTraced(collection, span, "invokeAny"));
+    } catch (RejectedExecutionException e) {
+      onRejected(collection, span);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -144,25 +219,35 @@ public class TracedExecutorService extends TracedExecutor implements ExecutorSer
   @Override
   public <T> T invokeAny(Collection<? extends Callable<T>> collection, long l, TimeUnit timeUnit)
       throws InterruptedException, ExecutionException, TimeoutException {
-    Span span = createSpan("invokeAny");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.invokeAny(collection, l, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("invokeAny");
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.invokeAny(toTraced(collection, toActivate), l, timeUnit);
+      Deadline deadline = deadline();
+      if (deadline != null) {
+        return delegate.invokeAny(toTraced(collection, span, "invokeAny"),
+            deadline.clamp(l, timeUnit), TimeUnit.NANOSECONDS);
+      }
+      return delegate.invokeAny(toTraced(collection, span, "invokeAny"), l, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(collection, span);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
   }
 
-  private <T> Collection<? extends Callable<T>> toTraced(Collection<? extends Callable<T>> delegate, Span toActivate) {
-    List<Callable<T>> tracedCallables = new ArrayList<Callable<T>>(delegate.size());
-
-    for (Callable<T> callable: delegate) {
-      tracedCallables.add(toActivate == null ? callable :
-          new TracedCallable<T>(callable, tracer, toActivate));
+  private <T> Collection<? extends Callable<T>> toTraced(Collection<? extends Callable<T>> delegate,
+      Span toActivate, String operationName) {
+    if (!instrumented && propagated(toActivate) == null && deadline() == null) {
+      return delegate;
     }
-
-    return tracedCallables;
+    return new TracedCallableCollection<T>(delegate, this, toActivate, operationName);
   }
 }
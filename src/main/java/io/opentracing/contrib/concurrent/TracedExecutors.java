@@ -0,0 +1,37 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Tracer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Factory methods for traced executors backed by JDK executors.
+ *
+ * <p>The jar is a multi-release jar: on Java 21 and newer the version of this class in
+ * {@code META-INF/versions/21} is loaded, which calls the virtual thread API. This version is used
+ * on older JDKs, where virtual threads are not available.
+ */
+public final class TracedExecutors {
+
+  private TracedExecutors() {
+  }
+
+  /**
+   * Executor starting a new virtual thread for each task, see
+   * {@code Executors.newVirtualThreadPerTaskExecutor()}. The span is activated on the virtual
+   * thread for the duration of the task only, so nothing stays in the thread locals of the
+   * {@link io.opentracing.ScopeManager} once the thread terminates.
+   *
+   * @throws UnsupportedOperationException if virtual threads are not available (Java 20 and older)
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor(Tracer tracer) {
+    return newVirtualThreadPerTaskExecutor(tracer, TracedExecutorOptions.DEFAULT);
+  }
+
+  /**
+   * @see #newVirtualThreadPerTaskExecutor(Tracer)
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor(Tracer tracer,
+      TracedExecutorOptions options) {
+    throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+  }
+}
@@ -0,0 +1,98 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ForkJoinPool} which propagates span from the submitting thread to tasks submitted from
+ * outside of the pool.
+ *
+ * <p>Tasks forked inside the pool are pushed directly to the work queue of the current worker and
+ * never pass through the pool methods, extend {@link TracedRecursiveTask} or
+ * {@link TracedRecursiveAction} to propagate span to them. Other {@link ForkJoinTask}s are passed
+ * to the pool unchanged and run without span, wrapping them would break the contract of
+ * {@link #submit(ForkJoinTask)} to return the given task. Runnables and callables are wrapped,
+ * also those of invokeAll/invokeAny, which newer JDKs submit without going through
+ * {@link #execute(Runnable)}.
+ */
+public class TracedForkJoinPool extends ForkJoinPool {
+
+  protected final Tracer tracer;
+
+  public TracedForkJoinPool(Tracer tracer) {
+    super();
+    this.tracer = tracer;
+  }
+
+  public TracedForkJoinPool(int parallelism, Tracer tracer) {
+    super(parallelism);
+    this.tracer = tracer;
+  }
+
+  public TracedForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory,
+      Thread.UncaughtExceptionHandler handler, boolean asyncMode, Tracer tracer) {
+    super(parallelism, factory, handler, asyncMode);
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Span span = tracer.activeSpan();
+    super.execute(span == null ? task : new TracedRunnable(task, tracer, span));
+  }
+
+  @Override
+  public <T> ForkJoinTask<T> submit(Callable<T> task) {
+    Span span = tracer.activeSpan();
+    return super.submit(span == null ? task : new TracedCallable<T>(task, tracer, span));
+  }
+
+  @Override
+  public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+    Span span = tracer.activeSpan();
+    return super.submit(span == null ? task : new TracedRunnable(task, tracer, span), result);
+  }
+
+  @Override
+  public ForkJoinTask<?> submit(Runnable task) {
+    Span span = tracer.activeSpan();
+    return super.submit(span == null ? task : new TracedRunnable(task, tracer, span));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+    return super.invokeAll(toTraced(tasks));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout,
+      TimeUnit unit) throws InterruptedException {
+    return super.invokeAll(toTraced(tasks), timeout, unit);
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+      throws InterruptedException, ExecutionException {
+    return super.invokeAny(toTraced(tasks));
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return super.invokeAny(toTraced(tasks), timeout, unit);
+  }
+
+  private <T> Collection<? extends Callable<T>> toTraced(Collection<? extends Callable<T>> tasks) {
+    Span span = tracer.activeSpan();
+    return span == null ? tasks : new TracedCallableCollection<T>(tasks, tracer, span);
+  }
+}
@@ -0,0 +1,458 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scheduled executor service backed by a hashed timer wheel, for large numbers of mostly cancelled
+ * timeouts. Scheduling and cancelling are O(1) instead of O(log n) of the heap used by
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}, in exchange tasks fire with the
+ * precision of one tick.
+ *
+ * <p>The span active when a task is scheduled is stored in the returned future itself and activated
+ * only when the task fires, no wrapper is allocated. Tasks run on the timer thread unless a task
+ * executor is given, so they should be short. {@link #execute(Runnable)} and {@code submit} run the
+ * task on the next tick.
+ *
+ * <p>After {@link #shutdown()} one-shot tasks still fire while periodic tasks are cancelled, a
+ * periodic task running at that time is cancelled when the run ends. {@link #shutdownNow()}
+ * returns the futures of tasks which did not fire.
+ */
+public class TracedHashedWheelTimer extends AbstractExecutorService
+    implements ScheduledExecutorService {
+
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+  /**
+   * Delays and periods are capped so that deadlines and differences of delays do not overflow.
+   */
+  private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+  private final Tracer tracer;
+  private final Executor taskExecutor;
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final long startNanos = System.nanoTime();
+
+  private final Queue<Timeout<?>> added = new ConcurrentLinkedQueue<Timeout<?>>();
+  private final Queue<Timeout<?>> cancelled = new ConcurrentLinkedQueue<Timeout<?>>();
+  /**
+   * Tasks scheduled and not yet fired or removed after cancellation.
+   */
+  private final AtomicInteger pending = new AtomicInteger();
+  private final CountDownLatch terminated = new CountDownLatch(1);
+  private final Thread worker;
+  private volatile int state = RUNNING;
+  /**
+   * Accessed by the worker thread only.
+   */
+  private long tick;
+
+  /**
+   * Timer with 10 ms ticks and 512 buckets running tasks on the timer thread.
+   */
+  public TracedHashedWheelTimer(Tracer tracer) {
+    this(tracer, 10, TimeUnit.MILLISECONDS, 512, null, Executors.defaultThreadFactory());
+  }
+
+  /**
+   * @param tickDuration precision of the timer
+   * @param ticksPerWheel number of buckets, rounded up to a power of two
+   * @param taskExecutor executor running fired tasks, null to run them on the timer thread
+   */
+  public TracedHashedWheelTimer(Tracer tracer, long tickDuration, TimeUnit timeUnit,
+      int ticksPerWheel, Executor taskExecutor, ThreadFactory threadFactory) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration has to be positive: " + tickDuration);
+    }
+    if (ticksPerWheel < 1 || ticksPerWheel > 1 << 30) {
+      throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+    }
+    this.tracer = tracer;
+    this.taskExecutor = taskExecutor;
+    this.tickNanos = timeUnit.toNanos(tickDuration);
+    int buckets = 1;
+    while (buckets < ticksPerWheel) {
+      buckets <<= 1;
+    }
+    this.wheel = new Bucket[buckets];
+    for (int i = 0; i < buckets; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = buckets - 1;
+    this.worker = threadFactory.newThread(new Worker());
+    worker.start();
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable runnable, long delay, TimeUnit timeUnit) {
+    return schedule(new Timeout<Void>(runnable, triggerTime(delay, timeUnit), 0));
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit timeUnit) {
+    return schedule(new Timeout<V>(callable, triggerTime(delay, timeUnit)));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(Runnable runnable, long initialDelay, long period,
+      TimeUnit timeUnit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period has to be positive: " + period);
+    }
+    return schedule(new Timeout<Void>(runnable, triggerTime(initialDelay, timeUnit),
+        Math.min(timeUnit.toNanos(period), MAX_DELAY_NANOS)));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(Runnable runnable, long initialDelay,
+      long delay, TimeUnit timeUnit) {
+    if (delay <= 0) {
+      throw new IllegalArgumentException("delay has to be positive: " + delay);
+    }
+    return schedule(new Timeout<Void>(runnable, triggerTime(initialDelay, timeUnit),
+        -Math.min(timeUnit.toNanos(delay), MAX_DELAY_NANOS)));
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    schedule(runnable, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return number of tasks which did not fire yet, including cancelled tasks not yet removed
+   */
+  public int pendingTasks() {
+    return pending.get();
+  }
+
+  @Override
+  public void shutdown() {
+    if (state == RUNNING) {
+      state = SHUTDOWN;
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    state = STOP;
+    worker.interrupt();
+    List<Runnable> tasks = new ArrayList<Runnable>();
+    if (Thread.currentThread() == worker) {
+      return tasks;
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        worker.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    // the worker terminated, the wheel can be read
+    for (Bucket bucket: wheel) {
+      for (Timeout<?> timeout = bucket.head; timeout != null; timeout = timeout.next) {
+        tasks.add(timeout);
+      }
+    }
+    Timeout<?> timeout;
+    while ((timeout = added.poll()) != null) {
+      if (!timeout.isCancelled()) {
+        tasks.add(timeout);
+      }
+    }
+    return tasks;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return state != RUNNING;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+    return terminated.await(timeout, timeUnit);
+  }
+
+  private <V> Timeout<V> schedule(Timeout<V> timeout) {
+    // count first, so that the worker does not terminate after the state was checked
+    pending.incrementAndGet();
+    if (state != RUNNING) {
+      pending.decrementAndGet();
+      throw new RejectedExecutionException("Timer is shut down");
+    }
+    added.add(timeout);
+    return timeout;
+  }
+
+  private long now() {
+    return System.nanoTime() - startNanos;
+  }
+
+  private long triggerTime(long delay, TimeUnit timeUnit) {
+    // now() is the time since the timer started, far below the cap
+    return now() + Math.min(Math.max(0, timeUnit.toNanos(delay)), MAX_DELAY_NANOS);
+  }
+
+  private class Worker implements Runnable {
+    private boolean periodicCancelled;
+
+    @Override
+    public void run() {
+      try {
+        while (state != STOP) {
+          long deadline = tickNanos * (tick + 1);
+          long sleepNanos = deadline - now();
+          if (sleepNanos > 0) {
+            LockSupport.parkNanos(sleepNanos);
+            // tasks running on the timer thread must not make it spin, shutdownNow sets the state
+            Thread.interrupted();
+            continue;
+          }
+          removeCancelled();
+          transferAdded();
+          if (state == SHUTDOWN && !periodicCancelled) {
+            cancelPeriodic();
+          }
+          expire(wheel[(int) (tick & mask)], deadline);
+          tick++;
+          if (state == SHUTDOWN && pending.get() == 0) {
+            break;
+          }
+        }
+      } finally {
+        terminated.countDown();
+      }
+    }
+
+    private void removeCancelled() {
+      Timeout<?> timeout;
+      while ((timeout = cancelled.poll()) != null) {
+        if (timeout.bucket != null) {
+          timeout.bucket.remove(timeout);
+          pending.decrementAndGet();
+        }
+      }
+    }
+
+    private void transferAdded() {
+      Timeout<?> timeout;
+      while ((timeout = added.poll()) != null) {
+        if (timeout.isCancelled()) {
+          pending.decrementAndGet();
+          continue;
+        }
+        if (state != RUNNING && timeout.isPeriodic()) {
+          // rescheduled by a run which ended while the timer was shut down
+          pending.decrementAndGet();
+          timeout.cancel(false);
+          continue;
+        }
+        long ticks = timeout.deadlineNanos / tickNanos;
+        timeout.rounds = (ticks - tick) / wheel.length;
+        wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+      }
+    }
+
+    /**
+     * Cancels the periodic tasks in the wheel once the timer is shut down.
+     */
+    private void cancelPeriodic() {
+      for (Bucket bucket: wheel) {
+        Timeout<?> timeout = bucket.head;
+        while (timeout != null) {
+          Timeout<?> next = timeout.next;
+          if (timeout.isPeriodic()) {
+            bucket.remove(timeout);
+            pending.decrementAndGet();
+            timeout.cancel(false);
+          }
+          timeout = next;
+        }
+      }
+      periodicCancelled = true;
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+      Timeout<?> timeout = bucket.head;
+      while (timeout != null) {
+        Timeout<?> next = timeout.next;
+        if (timeout.rounds <= 0 && timeout.deadlineNanos <= deadline) {
+          bucket.remove(timeout);
+          if (!timeout.isPeriodic()) {
+            pending.decrementAndGet();
+          }
+          fire(timeout);
+        } else {
+          timeout.rounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    private void fire(Timeout<?> timeout) {
+      if (taskExecutor == null) {
+        timeout.run();
+        return;
+      }
+      try {
+        taskExecutor.execute(timeout);
+      } catch (RejectedExecutionException e) {
+        timeout.rejected(e);
+      }
+    }
+  }
+
+  /**
+   * Future of a scheduled task, also the node of the bucket list. Bucket fields are accessed by the
+   * worker thread only.
+   */
+  private final class Timeout<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+    private final Span span = tracer.activeSpan();
+    /**
+     * Positive for fixed rate, negative for fixed delay, zero for one-shot tasks.
+     */
+    private final long periodNanos;
+    private volatile long deadlineNanos;
+    private long rounds;
+    private Bucket bucket;
+    private Timeout<?> previous;
+    private Timeout<?> next;
+
+    private Timeout(Runnable runnable, long deadlineNanos, long periodNanos) {
+      super(runnable, null);
+      this.deadlineNanos = deadlineNanos;
+      this.periodNanos = periodNanos;
+    }
+
+    private Timeout(Callable<V> callable, long deadlineNanos) {
+      super(callable);
+      this.deadlineNanos = deadlineNanos;
+      this.periodNanos = 0;
+    }
+
+    @Override
+    public void run() {
+      Scope scope = Scopes.activateIfChanged(tracer, span);
+      try {
+        if (!isPeriodic()) {
+          super.run();
+        } else if (!super.runAndReset()) {
+          pending.decrementAndGet();
+        } else if (state == RUNNING) {
+          deadlineNanos = periodNanos > 0 ? deadlineNanos + periodNanos : now() - periodNanos;
+          added.add(this);
+        } else {
+          pending.decrementAndGet();
+          cancel(false);
+        }
+      } finally {
+        if (scope != null) {
+          scope.close();
+        }
+      }
+    }
+
+    private void rejected(RejectedExecutionException e) {
+      setException(e);
+      if (isPeriodic()) {
+        pending.decrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        TracedHashedWheelTimer.this.cancelled.add(this);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+      return periodNanos != 0;
+    }
+
+    @Override
+    public long getDelay(TimeUnit timeUnit) {
+      return timeUnit.convert(deadlineNanos - now(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      if (other == this) {
+        return 0;
+      }
+      long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+      return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+    }
+  }
+
+  /**
+   * Doubly linked list of timeouts due in the same tick of some round.
+   */
+  private static final class Bucket {
+    private Timeout<?> head;
+    private Timeout<?> tail;
+
+    private void add(Timeout<?> timeout) {
+      timeout.bucket = this;
+      timeout.previous = tail;
+      timeout.next = null;
+      if (tail == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+      }
+      tail = timeout;
+    }
+
+    private void remove(Timeout<?> timeout) {
+      if (timeout.previous == null) {
+        head = timeout.next;
+      } else {
+        timeout.previous.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        tail = timeout.previous;
+      } else {
+        timeout.next.previous = timeout.previous;
+      }
+      timeout.bucket = null;
+      timeout.previous = null;
+      timeout.next = null;
+    }
+  }
+}
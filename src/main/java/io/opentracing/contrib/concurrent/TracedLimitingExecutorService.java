@@ -0,0 +1,357 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Traced executor service admitting at most {@link AimdLimit#limit()} concurrently running tasks.
+ * Tasks beyond the limit wait in a bounded queue and are rejected when it is full. Every task logs
+ * one {@value #ADMISSION_EVENT} event on the active span of the submitting thread with the outcome,
+ * {@code admitted}, {@code queued} or {@code rejected}, and the time it waited for admission in
+ * {@value #ADMISSION_WAIT}. The event of a queued task is logged when it leaves the queue. Tasks
+ * are traced like by {@link TracedExecutorService} when they are submitted, so the time a task
+ * waits for admission is also part of the queue wait reported to the {@link ExecutorListener} and
+ * tagged on the span of the task.
+ *
+ * <pre>
+ * ExecutorService executorService = new TracedLimitingExecutorService(ioPool, tracer,
+ *     TracedExecutorOptions.builder().build(),
+ *     new AimdLimit(16, 4, 256, 100, TimeUnit.MILLISECONDS), 1000);
+ * </pre>
+ *
+ * Admission is lock-free. All submit methods, including invokeAll and invokeAny, go through
+ * {@link #execute(Runnable)}. The limit adapts to the run time and failures of admitted tasks. A
+ * finishing task admits queued tasks after it completed. If the delegate rejects a queued task, it
+ * is handed to the {@link RejectionFallback} like any other task, if that rejects it as well its
+ * future fails with the {@link RejectedExecutionException}.
+ */
+public class TracedLimitingExecutorService extends AbstractExecutorService {
+
+  public static final String ADMISSION_EVENT = "admission";
+  public static final String ADMISSION_WAIT = "admission.wait.ns";
+  static final String ADMITTED = "admitted";
+  static final String QUEUED = "queued";
+  static final String REJECTED = "rejected";
+
+  private final ExecutorService delegate;
+  private final TracedExecutor traced;
+  private final Tracer tracer;
+  private final AimdLimit limit;
+  private final int maxQueued;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Queue<Pending> pending = new ConcurrentLinkedQueue<Pending>();
+  private volatile boolean shutdown;
+
+  /**
+   * Rejects tasks beyond the limit right away.
+   */
+  public TracedLimitingExecutorService(ExecutorService delegate, Tracer tracer, AimdLimit limit) {
+    this(delegate, tracer, TracedExecutorOptions.DEFAULT, limit, 0);
+  }
+
+  /**
+   * @param maxQueued maximum number of tasks waiting for admission
+   */
+  public TracedLimitingExecutorService(ExecutorService delegate, Tracer tracer,
+      TracedExecutorOptions options, AimdLimit limit, int maxQueued) {
+    this.delegate = delegate;
+    this.traced = new TracedExecutor(delegate, tracer, options);
+    this.tracer = tracer;
+    this.limit = limit;
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * The deadline is checked inside the future, so that the future of an expired task fails with
+   * {@link java.util.concurrent.TimeoutException}.
+   */
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    Deadline deadline = traced.deadline();
+    return new LimitedFutureTask<T>(deadline == null ? callable
+        : new DeadlineCallable<T>(callable, callable, deadline));
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return newTaskFor(Executors.callable(runnable, value));
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    if (runnable == null) {
+      throw new NullPointerException();
+    }
+    Span activeSpan = tracer.activeSpan();
+    Span span = activeSpan != null ? activeSpan : traced.createSpan("execute");
+    try {
+      Runnable task = toTraced(runnable, span);
+      if (shutdown) {
+        throw rejected(runnable, task, span);
+      }
+      if (tryAcquire()) {
+        logAdmission(span, ADMITTED, 0);
+        dispatch(new Admitted(runnable, task), span);
+        return;
+      }
+      if (!tryEnqueue()) {
+        throw rejected(runnable, task, span);
+      }
+      // a created span is finished right after the submit
+      pending.add(new Pending(runnable, task, span == activeSpan ? span : null));
+    } finally {
+      // finish the span if created
+      if (span != activeSpan) {
+        span.finish();
+      }
+    }
+    // a permit may have been released before the task was queued
+    drain();
+  }
+
+  /**
+   * @return number of admitted tasks which did not finish yet
+   */
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * @return number of tasks waiting for admission
+   */
+  public int queued() {
+    return queued.get();
+  }
+
+  /**
+   * @return number of tasks rejected on admission or by the delegate, including queued tasks
+   */
+  public long rejectedTasks() {
+    return traced.rejectedTasks();
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    if (queued.get() == 0) {
+      delegate.shutdown();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    List<Runnable> tasks = new ArrayList<Runnable>();
+    Pending task;
+    while ((task = pending.poll()) != null) {
+      queued.decrementAndGet();
+      tasks.add(task.runnable);
+    }
+    tasks.addAll(delegate.shutdownNow());
+    return tasks;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, timeUnit);
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.limit()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean tryEnqueue() {
+    while (true) {
+      int current = queued.get();
+      if (current >= maxQueued) {
+        return false;
+      }
+      if (queued.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private RejectedExecutionException rejected(Runnable runnable, Runnable task, Span span) {
+    logAdmission(span, REJECTED, 0);
+    traced.onRejected(runnable, span, task);
+    return new RejectedExecutionException(shutdown ? "Executor is shut down"
+        : "Concurrency limit " + limit.limit() + " reached");
+  }
+
+  private static void logAdmission(Span span, String outcome, long waitNanos) {
+    if (span != null) {
+      Map<String, Object> fields = new HashMap<String, Object>(4);
+      fields.put("event", ADMISSION_EVENT);
+      fields.put(ADMISSION_EVENT, outcome);
+      fields.put(ADMISSION_WAIT, waitNanos);
+      span.log(fields);
+    }
+  }
+
+  /**
+   * @param span active or created span, null if there is none
+   * @return the task traced on the submitting thread
+   */
+  private Runnable toTraced(Runnable runnable, Span span) {
+    if (span == null && traced.passThroughUntraced) {
+      return runnable;
+    }
+    // futures check the deadline themselves
+    return traced.toTraced(runnable, span, "execute", 0,
+        runnable instanceof LimitedFutureTask ? null : traced.deadline());
+  }
+
+  /**
+   * Hands an admitted task to the delegate, and to the {@link RejectionFallback} if the delegate
+   * rejects it.
+   *
+   * @throws RejectedExecutionException if the fallback rejected the task as well, the permit of the
+   * task is released
+   */
+  private void dispatch(Admitted admitted, Span span) {
+    try {
+      delegate.execute(admitted);
+    } catch (RejectedExecutionException e) {
+      traced.onRejected(admitted.runnable, span, admitted.traced);
+      try {
+        traced.fallback(admitted, e);
+      } catch (RejectedExecutionException fallbackException) {
+        inFlight.decrementAndGet();
+        throw fallbackException;
+      }
+    }
+  }
+
+  /**
+   * Admits queued tasks while there are free permits.
+   */
+  private void drain() {
+    while (!pending.isEmpty() && tryAcquire()) {
+      Pending task = pending.poll();
+      if (task == null) {
+        inFlight.decrementAndGet();
+        continue;
+      }
+      queued.decrementAndGet();
+      logAdmission(task.span, QUEUED, System.nanoTime() - task.queuedNanos);
+      try {
+        dispatch(new Admitted(task.runnable, task.traced), task.span);
+      } catch (RejectedExecutionException e) {
+        // nobody waits for a plain runnable, it is only reported as rejected
+        if (task.runnable instanceof LimitedFutureTask) {
+          ((LimitedFutureTask<?>) task.runnable).reject(e);
+        }
+      }
+    }
+    if (shutdown && queued.get() == 0) {
+      delegate.shutdown();
+    }
+  }
+
+  /**
+   * Future of submitted tasks, remembers failures which the future does not rethrow.
+   */
+  private static final class LimitedFutureTask<V> extends FutureTask<V> {
+    private boolean failed;
+
+    private LimitedFutureTask(Callable<V> callable) {
+      super(callable);
+    }
+
+    @Override
+    protected void setException(Throwable throwable) {
+      failed = true;
+      super.setException(throwable);
+    }
+
+    /**
+     * Fails the future of a task which was never run.
+     */
+    private void reject(RejectedExecutionException e) {
+      setException(e);
+    }
+  }
+
+  private static final class Pending {
+    private final Runnable runnable;
+    private final Runnable traced;
+    /**
+     * Active span of the submitting thread or null.
+     */
+    private final Span span;
+    private final long queuedNanos = System.nanoTime();
+
+    private Pending(Runnable runnable, Runnable traced, Span span) {
+      this.runnable = runnable;
+      this.traced = traced;
+      this.span = span;
+    }
+  }
+
+  /**
+   * Runs the traced task and releases its permit once the task completed, including its span and
+   * listener notifications.
+   */
+  private class Admitted implements Runnable {
+    private final Runnable runnable;
+    private final Runnable traced;
+
+    /**
+     * @param runnable task passed to {@link #execute(Runnable)}
+     * @param traced the task wrapped for tracing
+     */
+    Admitted(Runnable runnable, Runnable traced) {
+      this.runnable = runnable;
+      this.traced = traced;
+    }
+
+    @Override
+    public void run() {
+      long startNanos = System.nanoTime();
+      boolean failed = true;
+      try {
+        traced.run();
+        failed = runnable instanceof LimitedFutureTask && ((LimitedFutureTask<?>) runnable).failed;
+      } finally {
+        limit.onSample(inFlight.getAndDecrement(), System.nanoTime() - startNanos, failed);
+        drain();
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link RecursiveAction} which runs in the span active when it was created. Scope handling is the
+ * same as in {@link TracedRecursiveTask}.
+ */
+public abstract class TracedRecursiveAction extends RecursiveAction {
+
+  protected final Tracer tracer;
+  private final Span span;
+
+  protected TracedRecursiveAction(Tracer tracer) {
+    this(tracer, tracer.activeSpan());
+  }
+
+  protected TracedRecursiveAction(Tracer tracer, Span span) {
+    this.tracer = tracer;
+    this.span = span;
+  }
+
+  /**
+   * @return span the action runs in or null
+   */
+  public Span span() {
+    return span;
+  }
+
+  @Override
+  protected final void compute() {
+    Scope scope = Scopes.activateIfChanged(tracer, span);
+    try {
+      doCompute();
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  /**
+   * The main computation performed by this action, see {@link RecursiveAction#compute()}.
+   */
+  protected abstract void doCompute();
+}
@@ -0,0 +1,64 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link RecursiveTask} which runs in the span active when it was created.
+ *
+ * <p>Subtasks created inside {@link #doCompute()} capture the span of their parent. A scope is
+ * activated only if the span actually changes: forked subtasks executed by the same worker, or
+ * invoked directly, run in the scope already activated by the parent. Only subtasks stolen by
+ * another worker activate the span.
+ *
+ * <pre>
+ * class Sum extends TracedRecursiveTask&lt;Long&gt; {
+ *   protected Long doCompute() {
+ *     ...
+ *     Sum left = new Sum(tracer, ...);
+ *     left.fork();
+ *     return new Sum(tracer, ...).invoke() + left.join();
+ *   }
+ * }
+ * </pre>
+ */
+public abstract class TracedRecursiveTask<V> extends RecursiveTask<V> {
+
+  protected final Tracer tracer;
+  private final Span span;
+
+  protected TracedRecursiveTask(Tracer tracer) {
+    this(tracer, tracer.activeSpan());
+  }
+
+  protected TracedRecursiveTask(Tracer tracer, Span span) {
+    this.tracer = tracer;
+    this.span = span;
+  }
+
+  /**
+   * @return span the task runs in or null
+   */
+  public Span span() {
+    return span;
+  }
+
+  @Override
+  protected final V compute() {
+    Scope scope = Scopes.activateIfChanged(tracer, span);
+    try {
+      return doCompute();
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  /**
+   * The main computation performed by this task, see {@link RecursiveTask#compute()}.
+   */
+  protected abstract V doCompute();
+}
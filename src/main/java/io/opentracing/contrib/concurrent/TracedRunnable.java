@@ -6,6 +6,9 @@ import io.opentracing.Span;
 
 /**
  * @author Pavol Loffay
+ *
+ * The span is not activated again if it is already active on the thread running the task, e.g.
+ * with caller-runs rejection policies or same-thread executors.
  */
 public class TracedRunnable implements Runnable {
 
@@ -25,7 +28,7 @@ public class TracedRunnable implements Runnable {
 
   @Override
   public void run() {
-    Scope scope = span == null ? null : tracer.scopeManager().activate(span);
+    Scope scope = Scopes.activateIfChanged(tracer, span);
     try {
       delegate.run();
     } finally {
@@ -3,6 +3,7 @@ package io.opentracing.contrib.concurrent;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -12,6 +13,9 @@ import java.util.concurrent.TimeUnit;
  *
  * Executor which propagates span from parent thread to scheduled.
  * Optionally it creates parent span if traceWithActiveSpanOnly = false.
+ * Periodic tasks run directly in the propagated span, they are neither run in a span per task nor
+ * reported to the {@link ExecutorListener} unless {@link TracedExecutorOptions#periodicSpans()} is
+ * enabled.
  */
 public class TracedScheduledExecutorService extends TracedExecutorService implements ScheduledExecutorService {
 
@@ -27,15 +31,44 @@ public class TracedScheduledExecutorService extends TracedExecutorService implem
     this.delegate = delegate;
   }
 
+  /**
+   * @throws IllegalArgumentException if the options set a {@link RejectionFallback}, which could
+   * only run or re-submit a rejected scheduled task without its delay
+   */
+  public TracedScheduledExecutorService(ScheduledExecutorService delegate, Tracer tracer,
+      TracedExecutorOptions options) {
+    super(delegate, tracer, options);
+    this.delegate = delegate;
+    if (options.rejectionFallback() != null) {
+      throw new IllegalArgumentException("rejectionFallback is not supported for scheduled tasks");
+    }
+  }
+
   @Override
   public ScheduledFuture<?> schedule(Runnable runnable, long delay, TimeUnit timeUnit) {
-    Span span = createSpan("schedule");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.schedule(runnable, delay, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("schedule");
+    Callable<Object> tracedWithDeadline = null;
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.schedule(tracer.activeSpan() == null ? runnable :
-          new TracedRunnable(runnable, tracer, toActivate), delay, timeUnit);
+      // with a deadline the runnable is scheduled as a callable, so that its future fails
+      tracedWithDeadline =
+          toTracedWithDeadline(runnable, null, span, "schedule", timeUnit.toNanos(delay));
+      if (tracedWithDeadline != null) {
+        return delegate.schedule(tracedWithDeadline, delay, timeUnit);
+      }
+      traced = toTraced(runnable, span, "schedule", timeUnit.toNanos(delay));
+      return delegate.schedule(traced, delay, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, tracedWithDeadline != null ? tracedWithDeadline : traced);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -43,13 +76,22 @@ public class TracedScheduledExecutorService extends TracedExecutorService implem
 
   @Override
   public <T> ScheduledFuture<T> schedule(Callable<T> callable, long delay, TimeUnit timeUnit) {
-    Span span = createSpan("schedule");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.schedule(callable, delay, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("schedule");
+    Callable<T> traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.schedule(tracer.activeSpan() == null ? callable :
-          new TracedCallable<T>(callable, tracer, toActivate), delay, timeUnit);
+      traced = toTraced(callable, span, "schedule", timeUnit.toNanos(delay));
+      return delegate.schedule(traced, delay, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(callable, span, traced);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -58,13 +100,23 @@ public class TracedScheduledExecutorService extends TracedExecutorService implem
   @Override
   public ScheduledFuture<?> scheduleAtFixedRate(Runnable runnable, long initialDelay, long period,
       TimeUnit timeUnit) {
-    Span span = createSpan("scheduleAtFixedRate");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.scheduleAtFixedRate(runnable, initialDelay, period, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("scheduleAtFixedRate");
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.scheduleAtFixedRate(tracer.activeSpan() == null ? runnable :
-          new TracedRunnable(runnable, tracer, toActivate), initialDelay, period, timeUnit);
+      traced = toTracedPeriodic(runnable, span, "scheduleAtFixedRate",
+          timeUnit.toNanos(initialDelay), timeUnit.toNanos(period), true);
+      return delegate.scheduleAtFixedRate(traced, initialDelay, period, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, traced);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
@@ -73,15 +125,39 @@ public class TracedScheduledExecutorService extends TracedExecutorService implem
   @Override
   public ScheduledFuture<?> scheduleWithFixedDelay(Runnable runnable, long initialDelay, long delay,
       TimeUnit timeUnit) {
-    Span span = createSpan("scheduleWithFixedDelay");
+    Span activeSpan = tracer.activeSpan();
+    if (activeSpan == null && passThroughUntraced) {
+      return delegate.scheduleWithFixedDelay(runnable, initialDelay, delay, timeUnit);
+    }
+
+    Span span = activeSpan != null ? activeSpan : createSpan("scheduleWithFixedDelay");
+    Runnable traced = null;
     try {
-      Span toActivate = span != null ? span : tracer.activeSpan();
-      return delegate.scheduleWithFixedDelay(tracer.activeSpan() == null ? runnable :
-          new TracedRunnable(runnable, tracer, toActivate), initialDelay, delay, timeUnit);
+      traced = toTracedPeriodic(runnable, span, "scheduleWithFixedDelay",
+          timeUnit.toNanos(initialDelay), timeUnit.toNanos(delay), false);
+      return delegate.scheduleWithFixedDelay(traced, initialDelay, delay, timeUnit);
+    } catch (RejectedExecutionException e) {
+      onRejected(runnable, span, traced);
+      throw e;
     } finally {
-      if (span != null) {
+      // finish the span if created
+      if (span != activeSpan) {
         span.finish();
       }
     }
   }
+
+  private Runnable toTracedPeriodic(Runnable runnable, Span span, String operationName,
+      long initialDelayNanos, long periodNanos, boolean fixedRate) {
+    span = propagated(span);
+    if (!options.periodicSpans()) {
+      return span == null ? runnable : new TracedRunnable(runnable, tracer, span);
+    }
+    if (span == null && listener == null) {
+      return runnable;
+    }
+    Object state = listener == null ? null : listener.onSubmitWithState(runnable, span);
+    return new PeriodicRunnable(runnable, this, span == null ? null : span.context(), state,
+        operationName, initialDelayNanos, periodNanos, fixedRate);
+  }
 }
@@ -0,0 +1,82 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator running traversal in a span. Splits carry the span as well, so every chunk of a
+ * parallel stream activates it once in {@link #forEachRemaining(Consumer)} on the thread which
+ * processes it. Short-circuiting operations traverse by {@link #tryAdvance(Consumer)} and activate
+ * the span per element, unless it is already active on the thread.
+ */
+class TracedSpliterator<T> implements Spliterator<T> {
+
+  private final Spliterator<T> delegate;
+  private final Tracer tracer;
+  private final Span span;
+
+  TracedSpliterator(Spliterator<T> delegate, Tracer tracer, Span span) {
+    this.delegate = delegate;
+    this.tracer = tracer;
+    this.span = span;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    Scope scope = Scopes.activateIfChanged(tracer, span);
+    try {
+      return delegate.tryAdvance(action);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    Scope scope = Scopes.activateIfChanged(tracer, span);
+    try {
+      delegate.forEachRemaining(action);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    Spliterator<T> split = delegate.trySplit();
+    return split == null ? null : new TracedSpliterator<T>(split, tracer, span);
+  }
+
+  @Override
+  public long estimateSize() {
+    return delegate.estimateSize();
+  }
+
+  @Override
+  public long getExactSizeIfKnown() {
+    return delegate.getExactSizeIfKnown();
+  }
+
+  @Override
+  public int characteristics() {
+    return delegate.characteristics();
+  }
+
+  @Override
+  public boolean hasCharacteristics(int characteristics) {
+    return delegate.hasCharacteristics(characteristics);
+  }
+
+  @Override
+  public Comparator<? super T> getComparator() {
+    return delegate.getComparator();
+  }
+}
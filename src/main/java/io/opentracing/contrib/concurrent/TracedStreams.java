@@ -0,0 +1,68 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Propagates span to the operations of (parallel) streams. The span is activated once per chunk
+ * the stream is split into, not per element.
+ *
+ * <pre>
+ * long count = TracedStreams.parallelStream(orders, tracer)
+ *     .filter(predicate)
+ *     .count();
+ * </pre>
+ *
+ * Operations added after the stream is wrapped run in the span, as well as operations of a wrapped
+ * stream itself.
+ */
+public final class TracedStreams {
+
+  private TracedStreams() {
+  }
+
+  /**
+   * @return spliterator traversed in the span active now, or the delegate itself if there is no
+   * active span
+   */
+  public static <T> Spliterator<T> spliterator(Spliterator<T> delegate, Tracer tracer) {
+    return spliterator(delegate, tracer, tracer.activeSpan());
+  }
+
+  /**
+   * @return spliterator traversed in the given span, or the delegate itself if the span is null
+   */
+  public static <T> Spliterator<T> spliterator(Spliterator<T> delegate, Tracer tracer,
+      Span span) {
+    return span == null ? delegate : new TracedSpliterator<T>(delegate, tracer, span);
+  }
+
+  /**
+   * @return sequential or parallel stream like the given one running in the span active now
+   */
+  public static <T> Stream<T> stream(final Stream<T> stream, Tracer tracer) {
+    Span span = tracer.activeSpan();
+    if (span == null) {
+      return stream;
+    }
+    Spliterator<T> spliterator = spliterator(stream.spliterator(), tracer, span);
+    return StreamSupport.stream(spliterator, stream.isParallel())
+        .onClose(new Runnable() {
+          @Override
+          public void run() {
+            stream.close();
+          }
+        });
+  }
+
+  /**
+   * @return parallel stream of the collection running in the span active now
+   */
+  public static <T> Stream<T> parallelStream(Collection<T> collection, Tracer tracer) {
+    return StreamSupport.stream(spliterator(collection.spliterator(), tracer), true);
+  }
+}
@@ -0,0 +1,58 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Tracer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory whose threads pre-warm the scope manager when they start and run in a
+ * {@value TracedThreads#OPERATION_NAME} span tagged with the thread and pool name.
+ *
+ * <p>Pools create worker threads lazily on the thread of a submit and run many unrelated tasks on
+ * them, so the span should only be propagated if each thread runs a single task. Otherwise every
+ * worker records a root span for its lifetime, which is not active while its tasks run. Pools
+ * should be wrapped with a traced executor to propagate spans to their tasks.
+ *
+ * <pre>
+ * ExecutorService executorService = new TracedExecutorService(Executors.newFixedThreadPool(4,
+ *     new TracedThreadFactory(Executors.defaultThreadFactory(), tracer)), tracer);
+ * </pre>
+ *
+ * @see TracedThreads
+ */
+public class TracedThreadFactory implements ThreadFactory {
+
+  private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+  private final ThreadFactory delegate;
+  private final Tracer tracer;
+  private final String poolName;
+  private final boolean propagateSpan;
+
+  /**
+   * For pool workers, the pool is named {@code traced-pool-<n>}.
+   */
+  public TracedThreadFactory(ThreadFactory delegate, Tracer tracer) {
+    this(delegate, tracer, "traced-pool-" + POOL_NUMBER.incrementAndGet(), false);
+  }
+
+  /**
+   * @param poolName name tagged on the spans of the threads or null. Threads which propagate no
+   * span and have no pool name only pre-warm the scope manager.
+   * @param propagateSpan if true threads run in a child of the span active when they were created,
+   * false for pool workers
+   */
+  public TracedThreadFactory(ThreadFactory delegate, Tracer tracer, String poolName,
+      boolean propagateSpan) {
+    this.delegate = delegate;
+    this.tracer = tracer;
+    this.poolName = poolName;
+    this.propagateSpan = propagateSpan;
+  }
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+    return delegate.newThread(TracedThreads.wrap(runnable, tracer,
+        propagateSpan ? tracer.activeSpan() : null, poolName));
+  }
+}
@@ -0,0 +1,707 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ThreadPoolExecutor} which propagates span from the submitting thread to tasks without
+ * wrapping them.
+ *
+ * <p>Tasks submitted via {@code submit}/{@code invokeAll}/{@code invokeAny} carry the span in the
+ * {@link FutureTask} created by {@link #newTaskFor}, which the executor allocates anyway. The span
+ * is activated in {@link #beforeExecute(Thread, Runnable)} and closed in
+ * {@link #afterExecute(Runnable, Throwable)}. Only {@link #execute(Runnable)} with an active span
+ * needs a small holder object; {@link #getQueue()}, {@link #remove(Runnable)} and
+ * {@link #shutdownNow()} still see the original runnables.
+ *
+ * <p>Supported options are {@link TracedExecutorOptions#propagationPolicy()} and
+ * {@link TracedExecutorOptions#listener()}; the listener is notified from the before and after
+ * hooks. Subclasses overriding the hooks have to call the super implementation.
+ *
+ * <p>The {@link RejectedExecutionHandler} receives the traced task. A task it runs on the calling
+ * thread, e.g. with {@link CallerRunsPolicy}, runs in its span and is reported as started and
+ * finished. A task it neither runs nor executes again, e.g. with {@link DiscardPolicy}, is
+ * reported as rejected. Like tasks removed via {@link #remove(Runnable)}, queued tasks dropped by
+ * {@link DiscardOldestPolicy} are not reported.
+ */
+public class TracedThreadPoolExecutor extends ThreadPoolExecutor {
+
+  protected final Tracer tracer;
+  private final ExecutorListener listener;
+  private final PropagationPolicy propagationPolicy;
+  private final BlockingQueue<Runnable> originalTasks;
+
+  public TracedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
+      TimeUnit unit, BlockingQueue<Runnable> workQueue, Tracer tracer) {
+    this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, tracer,
+        TracedExecutorOptions.DEFAULT);
+  }
+
+  /**
+   * @param options only {@link TracedExecutorOptions#listener()} and
+   * {@link TracedExecutorOptions#propagationPolicy()} are supported, see
+   * {@link #TracedThreadPoolExecutor(int, int, long, TimeUnit, BlockingQueue, ThreadFactory,
+   * RejectedExecutionHandler, Tracer, TracedExecutorOptions)}
+   */
+  public TracedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
+      TimeUnit unit, BlockingQueue<Runnable> workQueue, Tracer tracer,
+      TracedExecutorOptions options) {
+    this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+        Executors.defaultThreadFactory(), new AbortPolicy(), tracer, options);
+  }
+
+  /**
+   * @param options only {@link TracedExecutorOptions#listener()} and
+   * {@link TracedExecutorOptions#propagationPolicy()} are supported. Tasks run directly in the
+   * propagated span, so {@code spanPerTask} and {@code taskEvents} do not apply, rejections are
+   * handled by the {@link RejectedExecutionHandler} instead of a {@link RejectionFallback}, and
+   * deadlines are not propagated. Options which cannot be honored are rejected, periodic span
+   * options are ignored.
+   * @throws IllegalArgumentException if the options enable an unsupported feature
+   */
+  public TracedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
+      TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+      RejectedExecutionHandler handler, Tracer tracer, TracedExecutorOptions options) {
+    super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory,
+        new HookedRejectionHandler(handler));
+    this.tracer = tracer;
+    this.listener = options.listener();
+    this.propagationPolicy = options.propagationPolicy();
+    this.originalTasks = new OriginalTaskQueue(workQueue);
+    checkSupported(options);
+  }
+
+  private static void checkSupported(TracedExecutorOptions options) {
+    if (!options.traceWithActiveSpanOnly()) {
+      throw new IllegalArgumentException("traceWithActiveSpanOnly(false) is not supported");
+    }
+    if (options.spanPerTask() || options.taskEvents()) {
+      throw new IllegalArgumentException("spanPerTask and taskEvents are not supported");
+    }
+    if (options.rejectionFallback() != null) {
+      throw new IllegalArgumentException(
+          "rejectionFallback is not supported, use a RejectedExecutionHandler");
+    }
+    if (options.propagateDeadline()) {
+      throw new IllegalArgumentException("propagateDeadline is not supported");
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    return new TracedFutureTask<T>(callable, callable, propagated());
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return new TracedFutureTask<T>(runnable, value, runnable, propagated());
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (command instanceof HookedTask) {
+      // created by newTaskFor, i.e. submitted via submit/invokeAll/invokeAny
+      HookedTask task = (HookedTask) command;
+      if (task.isRejected()) {
+        // executed again by the rejection handler, already reported as submitted
+        task.setRejected(false);
+      } else {
+        task.submitted(submitted(task.task(), task.span()));
+      }
+      super.execute(command);
+      return;
+    }
+
+    Span span = propagated();
+    if (span == null && listener == null) {
+      super.execute(command);
+      return;
+    }
+    TracedExecuteTask task = new TracedExecuteTask(command, span);
+    task.submitted(submitted(command, span));
+    super.execute(task);
+  }
+
+  /**
+   * Same as the inherited implementation, except that the tasks are executed as created by
+   * {@link #newTaskFor} instead of wrapped in an {@link java.util.concurrent.ExecutorCompletionService}
+   * future, so they are traced and reported with the original callables.
+   */
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+      throws InterruptedException, ExecutionException {
+    try {
+      return invokeAny(tasks, false, 0);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * See {@link #invokeAny(Collection)}.
+   */
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return invokeAny(tasks, true, unit.toNanos(timeout));
+  }
+
+  private <T> T invokeAny(Collection<? extends Callable<T>> tasks, boolean timed, long nanos)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (tasks.isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    long deadline = System.nanoTime() + nanos;
+    final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<Future<T>>();
+    List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    Iterator<? extends Callable<T>> iterator = tasks.iterator();
+    ExecutionException failure = null;
+    int active = 0;
+    try {
+      while (true) {
+        Future<T> future = completed.poll();
+        if (future == null) {
+          if (iterator.hasNext()) {
+            // start one more task while none completed
+            Callable<T> callable = iterator.next();
+            if (callable == null) {
+              throw new NullPointerException();
+            }
+            TracedFutureTask<T> task =
+                new TracedFutureTask<T>(callable, callable, propagated()) {
+                  @Override
+                  protected void done() {
+                    completed.add(this);
+                  }
+                };
+            futures.add(task);
+            execute(task);
+            active++;
+            continue;
+          }
+          if (active == 0) {
+            throw failure;
+          }
+          if (timed) {
+            future = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (future == null) {
+              throw new TimeoutException();
+            }
+          } else {
+            future = completed.take();
+          }
+        }
+        active--;
+        try {
+          return future.get();
+        } catch (ExecutionException e) {
+          failure = e;
+        } catch (RuntimeException e) {
+          failure = new ExecutionException(e);
+        }
+      }
+    } finally {
+      for (Future<T> future: futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Runs the rejection handler for a task already reported as submitted.
+   */
+  private void rejected(HookedTask task, RejectedExecutionHandler handler) {
+    task.setRejected(true);
+    try {
+      handler.rejectedExecution((Runnable) task, this);
+    } finally {
+      // neither run by the handler nor executed again
+      if (task.isRejected()) {
+        task.setRejected(false);
+        if (task.span() != null) {
+          task.span().log(TracedExecutor.REJECTED_EVENT);
+        }
+        if (listener != null) {
+          listener.onRejected(task.task(), task.span(), task.listenerState());
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void beforeExecute(Thread thread, Runnable runnable) {
+    super.beforeExecute(thread, runnable);
+    if (runnable instanceof HookedTask) {
+      taskStarted((HookedTask) runnable);
+    }
+  }
+
+  @Override
+  protected void afterExecute(Runnable runnable, Throwable throwable) {
+    if (runnable instanceof HookedTask) {
+      taskFinished((HookedTask) runnable, throwable);
+    }
+    super.afterExecute(runnable, throwable);
+  }
+
+  private void taskStarted(HookedTask task) {
+    long startNanos = System.nanoTime();
+    task.started(Scopes.activateIfChanged(tracer, task.span()), startNanos);
+    if (listener != null) {
+      listener.onStart(task.task(), task.span(), startNanos - task.submitNanos(),
+          task.listenerState());
+    }
+  }
+
+  private void taskFinished(HookedTask task, Throwable throwable) {
+    if (task.scope() != null) {
+      task.scope().close();
+    }
+    if (listener != null) {
+      Throwable error = throwable != null ? throwable : task.error();
+      listener.onFinish(task.task(), task.span(), task.startNanos() - task.submitNanos(),
+          System.nanoTime() - task.startNanos(), error, task.listenerState());
+    }
+  }
+
+  /**
+   * @return the handler passed to the constructor or set later
+   */
+  @Override
+  public RejectedExecutionHandler getRejectedExecutionHandler() {
+    return ((HookedRejectionHandler) super.getRejectedExecutionHandler()).delegate;
+  }
+
+  @Override
+  public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+    super.setRejectedExecutionHandler(new HookedRejectionHandler(handler));
+  }
+
+  /**
+   * @return view of the work queue which returns the original runnables of
+   * {@link #execute(Runnable)}
+   */
+  @Override
+  public BlockingQueue<Runnable> getQueue() {
+    return originalTasks;
+  }
+
+  @Override
+  public boolean remove(Runnable task) {
+    for (Runnable queued: super.getQueue()) {
+      if (queued instanceof TracedExecuteTask && task.equals(original(queued))) {
+        return super.remove(queued);
+      }
+    }
+    return super.remove(task);
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> tasks = super.shutdownNow();
+    List<Runnable> pending = new ArrayList<Runnable>(tasks.size());
+    for (Runnable task: tasks) {
+      pending.add(original(task));
+    }
+    return pending;
+  }
+
+  private static Runnable original(Runnable task) {
+    return task instanceof TracedExecuteTask ? ((TracedExecuteTask) task).delegate : task;
+  }
+
+  /**
+   * @return span to propagate to the task or null
+   */
+  private Span propagated() {
+    Span span = tracer.activeSpan();
+    if (span != null && propagationPolicy != null && !propagationPolicy.propagate(span)) {
+      span = null;
+    }
+    return span;
+  }
+
+  /**
+   * @return state of the listener for the task or null
+   */
+  private Object submitted(Object task, Span span) {
+    return listener == null ? null : listener.onSubmitWithState(task, span);
+  }
+
+  /**
+   * Hands traced tasks back to the executor, which reports them before running the handler.
+   */
+  static class HookedRejectionHandler implements RejectedExecutionHandler {
+    private final RejectedExecutionHandler delegate;
+
+    HookedRejectionHandler(RejectedExecutionHandler delegate) {
+      if (delegate == null) {
+        throw new NullPointerException();
+      }
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      if (runnable instanceof HookedTask && executor instanceof TracedThreadPoolExecutor) {
+        ((TracedThreadPoolExecutor) executor).rejected((HookedTask) runnable, delegate);
+      } else {
+        delegate.rejectedExecution(runnable, executor);
+      }
+    }
+  }
+
+  /**
+   * Task recognized by the before and after hooks. A task runs once, so the scope and start time
+   * set by {@link #beforeExecute(Thread, Runnable)} on the worker thread are read back by
+   * {@link #afterExecute(Runnable, Throwable)} on the same thread.
+   */
+  interface HookedTask {
+    Object task();
+
+    Span span();
+
+    /**
+     * @param listenerState state returned by the listener on submit
+     */
+    void submitted(Object listenerState);
+
+    /**
+     * @return state returned by the listener on submit
+     */
+    Object listenerState();
+
+    long submitNanos();
+
+    /**
+     * @param rejected whether the task is passed to the rejection handler, which may run it on
+     * the calling thread
+     */
+    void setRejected(boolean rejected);
+
+    boolean isRejected();
+
+    void started(Scope scope, long startNanos);
+
+    Scope scope();
+
+    long startNanos();
+
+    /**
+     * @return exception thrown by the task if the task captures it instead of throwing
+     */
+    Throwable error();
+  }
+
+  class TracedFutureTask<V> extends FutureTask<V> implements HookedTask {
+    private final Object task;
+    private final Span span;
+    private Object listenerState;
+    private long submitNanos;
+    private boolean rejected;
+    private Scope scope;
+    private long startNanos;
+    private Throwable error;
+
+    TracedFutureTask(Callable<V> callable, Object task, Span span) {
+      super(callable);
+      this.task = task;
+      this.span = span;
+    }
+
+    TracedFutureTask(Runnable runnable, V result, Object task, Span span) {
+      super(runnable, result);
+      this.task = task;
+      this.span = span;
+    }
+
+    @Override
+    public void run() {
+      if (!rejected) {
+        super.run();
+        return;
+      }
+      // run by the rejection handler
+      rejected = false;
+      taskStarted(this);
+      try {
+        super.run();
+      } finally {
+        taskFinished(this, null);
+      }
+    }
+
+    @Override
+    protected void setException(Throwable throwable) {
+      error = throwable;
+      super.setException(throwable);
+    }
+
+    @Override
+    public Object task() {
+      return task;
+    }
+
+    @Override
+    public Span span() {
+      return span;
+    }
+
+    @Override
+    public void submitted(Object listenerState) {
+      this.listenerState = listenerState;
+      this.submitNanos = System.nanoTime();
+    }
+
+    @Override
+    public Object listenerState() {
+      return listenerState;
+    }
+
+    @Override
+    public long submitNanos() {
+      return submitNanos;
+    }
+
+    @Override
+    public void setRejected(boolean rejected) {
+      this.rejected = rejected;
+    }
+
+    @Override
+    public boolean isRejected() {
+      return rejected;
+    }
+
+    @Override
+    public void started(Scope scope, long startNanos) {
+      this.scope = scope;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public Scope scope() {
+      return scope;
+    }
+
+    @Override
+    public long startNanos() {
+      return startNanos;
+    }
+
+    @Override
+    public Throwable error() {
+      return error;
+    }
+  }
+
+  class TracedExecuteTask implements Runnable, HookedTask {
+    private final Runnable delegate;
+    private final Span span;
+    private Object listenerState;
+    private long submitNanos;
+    private boolean rejected;
+    private Scope scope;
+    private long startNanos;
+
+    TracedExecuteTask(Runnable delegate, Span span) {
+      this.delegate = delegate;
+      this.span = span;
+    }
+
+    @Override
+    public void run() {
+      if (!rejected) {
+        delegate.run();
+        return;
+      }
+      // run by the rejection handler
+      rejected = false;
+      taskStarted(this);
+      Throwable error = null;
+      try {
+        delegate.run();
+      } catch (Throwable throwable) {
+        error = throwable;
+        throw throwable;
+      } finally {
+        taskFinished(this, error);
+      }
+    }
+
+    @Override
+    public Object task() {
+      return delegate;
+    }
+
+    @Override
+    public Span span() {
+      return span;
+    }
+
+    @Override
+    public void submitted(Object listenerState) {
+      this.listenerState = listenerState;
+      this.submitNanos = System.nanoTime();
+    }
+
+    @Override
+    public Object listenerState() {
+      return listenerState;
+    }
+
+    @Override
+    public long submitNanos() {
+      return submitNanos;
+    }
+
+    @Override
+    public void setRejected(boolean rejected) {
+      this.rejected = rejected;
+    }
+
+    @Override
+    public boolean isRejected() {
+      return rejected;
+    }
+
+    @Override
+    public void started(Scope scope, long startNanos) {
+      this.scope = scope;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public Scope scope() {
+      return scope;
+    }
+
+    @Override
+    public long startNanos() {
+      return startNanos;
+    }
+
+    @Override
+    public Throwable error() {
+      return null;
+    }
+  }
+
+  /**
+   * Work queue as seen by users of the executor, which unwraps the tasks of
+   * {@link #execute(Runnable)}. Elements added through the view are not traced.
+   */
+  static class OriginalTaskQueue extends AbstractQueue<Runnable>
+      implements BlockingQueue<Runnable> {
+    private final BlockingQueue<Runnable> delegate;
+
+    OriginalTaskQueue(BlockingQueue<Runnable> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+      return delegate.offer(task);
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+      delegate.put(task);
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit timeUnit)
+        throws InterruptedException {
+      return delegate.offer(task, timeout, timeUnit);
+    }
+
+    @Override
+    public Runnable poll() {
+      return original(delegate.poll());
+    }
+
+    @Override
+    public Runnable peek() {
+      return original(delegate.peek());
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+      return original(delegate.take());
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit timeUnit) throws InterruptedException {
+      return original(delegate.poll(timeout, timeUnit));
+    }
+
+    @Override
+    public int remainingCapacity() {
+      return delegate.remainingCapacity();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+      return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+      if (collection == this) {
+        throw new IllegalArgumentException();
+      }
+      int count = 0;
+      Runnable task;
+      while (count < maxElements && (task = delegate.poll()) != null) {
+        collection.add(original(task));
+        count++;
+      }
+      return count;
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+      final Iterator<Runnable> iterator = delegate.iterator();
+      return new Iterator<Runnable>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Runnable next() {
+          return original(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+          iterator.remove();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tags;
+
+/**
+ * Starts raw threads which run in a child of the span active when they were started.
+ *
+ * <pre>
+ * TracedThreads.start(runnable, "loader", tracer);
+ * </pre>
+ *
+ * The child span {@value #OPERATION_NAME} is started on the new thread, tagged with
+ * {@value #THREAD_NAME_TAG} and finished when the runnable returns. Threads started without an
+ * active span only pre-warm the scope manager, pool workers of a {@link TracedThreadFactory}
+ * record a root span instead.
+ *
+ * @see TracedThreadFactory
+ */
+public final class TracedThreads {
+
+  public static final String OPERATION_NAME = "thread";
+  public static final String THREAD_NAME_TAG = "thread.name";
+  public static final String POOL_NAME_TAG = "pool.name";
+
+  private TracedThreads() {
+  }
+
+  public static Thread start(Runnable runnable, Tracer tracer) {
+    Thread thread = new Thread(wrap(runnable, tracer, tracer.activeSpan(), null));
+    thread.start();
+    return thread;
+  }
+
+  public static Thread start(Runnable runnable, String name, Tracer tracer) {
+    Thread thread = new Thread(wrap(runnable, tracer, tracer.activeSpan(), null), name);
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Initializes the thread local state of the scope manager on the current thread, so that the
+   * first task running on it does not pay for it. Only looks up the active span, failures of the
+   * tracer are ignored.
+   */
+  public static void prewarm(Tracer tracer) {
+    try {
+      tracer.scopeManager().activeSpan();
+    } catch (RuntimeException e) {
+      // warm-up is best effort and never fails the thread
+    }
+  }
+
+  /**
+   * @param span parent of the span to run the runnable in or null
+   * @param poolName name of the pool the thread belongs to or null
+   */
+  static Runnable wrap(Runnable runnable, Tracer tracer, Span span, String poolName) {
+    return new ThreadRunnable(runnable, tracer, span, poolName);
+  }
+
+  /**
+   * Runs the runnable of a thread in a {@link TracedRunnable}. With a parent the thread span is
+   * active while the runnable runs. A pool worker without a parent gets a root thread span which
+   * is never activated, so tasks running on the worker are not attributed to it, it only records
+   * the lifetime of the worker.
+   */
+  static final class ThreadRunnable implements Runnable {
+
+    private final Runnable delegate;
+    private final Tracer tracer;
+    private final Span parent;
+    private final String poolName;
+
+    ThreadRunnable(Runnable delegate, Tracer tracer, Span parent, String poolName) {
+      this.delegate = delegate;
+      this.tracer = tracer;
+      this.parent = parent;
+      this.poolName = poolName;
+    }
+
+    @Override
+    public void run() {
+      prewarm(tracer);
+      if (parent == null && poolName == null) {
+        delegate.run();
+        return;
+      }
+      Tracer.SpanBuilder builder = tracer.buildSpan(OPERATION_NAME)
+          .withTag(THREAD_NAME_TAG, Thread.currentThread().getName());
+      if (parent != null) {
+        builder.asChildOf(parent);
+      } else {
+        builder.ignoreActiveSpan();
+      }
+      if (poolName != null) {
+        builder.withTag(POOL_NAME_TAG, poolName);
+      }
+      Span threadSpan = builder.start();
+      try {
+        new TracedRunnable(delegate, tracer, parent != null ? threadSpan : null).run();
+      } catch (RuntimeException e) {
+        Tags.ERROR.set(threadSpan, true);
+        throw e;
+      } catch (Error e) {
+        Tags.ERROR.set(threadSpan, true);
+        throw e;
+      } finally {
+        threadSpan.finish();
+      }
+    }
+  }
+}
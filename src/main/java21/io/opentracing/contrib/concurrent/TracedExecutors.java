@@ -0,0 +1,32 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Tracer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory methods for traced executors backed by JDK executors, Java 21 version.
+ */
+public final class TracedExecutors {
+
+  private TracedExecutors() {
+  }
+
+  /**
+   * Executor starting a new virtual thread for each task, see
+   * {@link Executors#newVirtualThreadPerTaskExecutor()}. The span is activated on the virtual
+   * thread for the duration of the task only, so nothing stays in the thread locals of the
+   * {@link io.opentracing.ScopeManager} once the thread terminates.
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor(Tracer tracer) {
+    return newVirtualThreadPerTaskExecutor(tracer, TracedExecutorOptions.DEFAULT);
+  }
+
+  /**
+   * @see #newVirtualThreadPerTaskExecutor(Tracer)
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor(Tracer tracer,
+      TracedExecutorOptions options) {
+    return new TracedExecutorService(Executors.newVirtualThreadPerTaskExecutor(), tracer, options);
+  }
+}
@@ -0,0 +1,170 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * {@link SubmissionPublisher} which carries the active span of the publishing thread to
+ * {@link Flow.Subscriber#onNext(Object)} of every subscriber.
+ *
+ * <p>Items are delivered by tasks of a {@link TracedExecutor}, so the configured
+ * {@link TracedExecutorOptions} (listener, rejection fallback, ...) apply to them. A delivery task
+ * serves many items of one subscriber, so it propagates neither the span nor the {@link Deadline} of
+ * the thread starting it. Instead it keeps the span of an item active until an item with a different
+ * span arrives, a run of items published in the same span costs one activation. Items published
+ * without an active span are delivered without one.
+ *
+ * <p>Besides the estimated lag returned by {@link #submit(Object)}, the publisher records the time
+ * items spend in subscriber buffers in {@link #bufferLag()} and the estimated lag at submit in
+ * {@link #backlog()}. Requires Java 9.
+ */
+public class TracedSubmissionPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+  private final SubmissionPublisher<Item<T>> delegate;
+  private final Tracer tracer;
+  private final LatencyHistogram bufferLag = new LatencyHistogram();
+  private final LatencyHistogram backlog = new LatencyHistogram();
+
+  /**
+   * Publisher delivering on {@link ForkJoinPool#commonPool()} with
+   * {@link Flow#defaultBufferSize()} buffers.
+   */
+  public TracedSubmissionPublisher(Tracer tracer) {
+    this(ForkJoinPool.commonPool(), Flow.defaultBufferSize(), tracer);
+  }
+
+  public TracedSubmissionPublisher(Executor executor, int maxBufferCapacity, Tracer tracer) {
+    this(executor, maxBufferCapacity, tracer, TracedExecutorOptions.DEFAULT);
+  }
+
+  /**
+   * @param executor executor running the delivery tasks, wrapped in a {@link TracedExecutor}
+   * @param maxBufferCapacity maximum buffer size of each subscriber
+   */
+  public TracedSubmissionPublisher(Executor executor, int maxBufferCapacity, Tracer tracer,
+      TracedExecutorOptions options) {
+    this.tracer = tracer;
+    Executor delivery = new TracedExecutor(executor, tracer, options.withoutPropagation());
+    this.delegate = new SubmissionPublisher<>(new TracedSubscriber.DeliveryExecutor(delivery),
+        maxBufferCapacity);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    delegate.subscribe(new TracedSubscriber<T>(subscriber, tracer, bufferLag));
+  }
+
+  /**
+   * @see SubmissionPublisher#submit(Object)
+   */
+  public int submit(T item) {
+    return recordBacklog(delegate.submit(wrap(item)));
+  }
+
+  /**
+   * @see SubmissionPublisher#offer(Object, BiPredicate)
+   */
+  public int offer(T item, BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+    return recordBacklog(delegate.offer(wrap(item), unwrap(onDrop)));
+  }
+
+  /**
+   * @see SubmissionPublisher#offer(Object, long, TimeUnit, BiPredicate)
+   */
+  public int offer(T item, long timeout, TimeUnit unit,
+      BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+    return recordBacklog(delegate.offer(wrap(item), timeout, unit, unwrap(onDrop)));
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  public void closeExceptionally(Throwable error) {
+    delegate.closeExceptionally(error);
+  }
+
+  public boolean isClosed() {
+    return delegate.isClosed();
+  }
+
+  public Throwable getClosedException() {
+    return delegate.getClosedException();
+  }
+
+  public boolean hasSubscribers() {
+    return delegate.hasSubscribers();
+  }
+
+  public int getNumberOfSubscribers() {
+    return delegate.getNumberOfSubscribers();
+  }
+
+  public int getMaxBufferCapacity() {
+    return delegate.getMaxBufferCapacity();
+  }
+
+  public int estimateMaximumLag() {
+    return delegate.estimateMaximumLag();
+  }
+
+  public long estimateMinimumDemand() {
+    return delegate.estimateMinimumDemand();
+  }
+
+  /**
+   * @return nanoseconds between publishing of items and their delivery to {@code onNext}
+   */
+  public LatencyHistogram bufferLag() {
+    return bufferLag;
+  }
+
+  /**
+   * @return estimated maximum lag (items submitted but not yet consumed) of the subscribers as
+   * returned by {@code submit}/{@code offer}, negative drop counts are recorded as zero
+   */
+  public LatencyHistogram backlog() {
+    return backlog;
+  }
+
+  private Item<T> wrap(T item) {
+    return new Item<>(item, tracer.activeSpan(), System.nanoTime());
+  }
+
+  private int recordBacklog(int lag) {
+    backlog.record(lag);
+    return lag;
+  }
+
+  private static <T> BiPredicate<Flow.Subscriber<? super Item<T>>, ? super Item<T>> unwrap(
+      final BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+    if (onDrop == null) {
+      return null;
+    }
+    return (subscriber, item) ->
+        onDrop.test(TracedSubscriber.<T>unwrap(subscriber), item.value);
+  }
+
+  /**
+   * Published item with the span it was published in.
+   */
+  static final class Item<T> {
+
+    final T value;
+    final Span span;
+    final long publishNanos;
+
+    Item(T value, Span span, long publishNanos) {
+      this.value = value;
+      this.span = span;
+      this.publishNanos = publishNanos;
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package io.opentracing.contrib.concurrent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.concurrent.TracedSubmissionPublisher.Item;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber of {@link TracedSubmissionPublisher} items delivering them to the wrapped subscriber
+ * in the span they were published in.
+ *
+ * <p>Within a delivery task the span of an item stays active until an item with a different span,
+ * a completion signal or the end of the task, so consecutive items of one span share a scope.
+ * Outside of a delivery task each item is activated on its own.
+ */
+final class TracedSubscriber<T> implements Flow.Subscriber<Item<T>> {
+
+  private static final ThreadLocal<Held> HELD = new ThreadLocal<>();
+
+  private final Flow.Subscriber<? super T> delegate;
+  private final Tracer tracer;
+  private final LatencyHistogram bufferLag;
+
+  TracedSubscriber(Flow.Subscriber<? super T> delegate, Tracer tracer,
+      LatencyHistogram bufferLag) {
+    this.delegate = delegate;
+    this.tracer = tracer;
+    this.bufferLag = bufferLag;
+  }
+
+  /**
+   * @return subscriber wrapped by the given {@link TracedSubscriber}
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Flow.Subscriber<? super T> unwrap(Flow.Subscriber<?> subscriber) {
+    return ((TracedSubscriber<T>) subscriber).delegate;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    release();
+    delegate.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(Item<T> item) {
+    bufferLag.record(System.nanoTime() - item.publishNanos);
+    Held held = HELD.get();
+    if (held != null) {
+      held.activate(tracer, item.span);
+      delegate.onNext(item.value);
+      return;
+    }
+
+    Scope scope = Scopes.activateIfChanged(tracer, item.span);
+    try {
+      delegate.onNext(item.value);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    release();
+    delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    release();
+    delegate.onComplete();
+  }
+
+  /**
+   * Equal to subscribers wrapping the same subscriber, so that the publisher detects duplicate
+   * subscriptions.
+   */
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof TracedSubscriber
+        && delegate.equals(((TracedSubscriber<?>) other).delegate);
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  private static void release() {
+    Held held = HELD.get();
+    if (held != null) {
+      held.close();
+    }
+  }
+
+  /**
+   * Scope kept open across items of a delivery task.
+   */
+  private static final class Held {
+
+    private Span span;
+    private Scope scope;
+
+    void activate(Tracer tracer, Span span) {
+      if (span == this.span) {
+        return;
+      }
+      close();
+      this.span = span;
+      this.scope = Scopes.activateIfChanged(tracer, span);
+    }
+
+    void close() {
+      if (scope != null) {
+        scope.close();
+        scope = null;
+      }
+      span = null;
+    }
+  }
+
+  /**
+   * Executor running the delivery tasks of the publisher with a {@link Held} scope, which is
+   * closed when the task returns.
+   */
+  static final class DeliveryExecutor implements Executor {
+
+    private final Executor delegate;
+
+    DeliveryExecutor(Executor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+      delegate.execute(() -> {
+        Held previous = HELD.get();
+        Held held = new Held();
+        HELD.set(held);
+        try {
+          task.run();
+        } finally {
+          held.close();
+          if (previous == null) {
+            HELD.remove();
+          } else {
+            HELD.set(previous);
+          }
+        }
+      });
+    }
+  }
+}
@@ -5,9 +5,12 @@ import static org.junit.Assert.assertEquals;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 
+import io.opentracing.Scope;
+import io.opentracing.Span;
 import io.opentracing.mock.MockSpan;
 import io.opentracing.mock.MockTracer;
 import io.opentracing.util.ThreadLocalScopeManager;
@@ -40,6 +43,24 @@ public abstract class AbstractConcurrentTest {
     }
   }
 
+  static class CountingScopeManager extends ThreadLocalScopeManager {
+    final AtomicInteger activations = new AtomicInteger();
+    final AtomicInteger closes = new AtomicInteger();
+
+    @Override
+    public Scope activate(Span span) {
+      activations.incrementAndGet();
+      final Scope scope = super.activate(span);
+      return new Scope() {
+        @Override
+        public void close() {
+          closes.incrementAndGet();
+          scope.close();
+        }
+      };
+    }
+  }
+
   protected CountDownLatch countDownLatch = new CountDownLatch(0);
   protected MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager());
 
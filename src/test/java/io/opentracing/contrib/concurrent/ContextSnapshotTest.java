@@ -0,0 +1,106 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class ContextSnapshotTest extends AbstractConcurrentTest {
+
+  @Test
+  public void testWrapOnManyExecutors() throws Exception {
+    ExecutorService first = Executors.newFixedThreadPool(2);
+    ExecutorService second = Executors.newSingleThreadExecutor();
+    countDownLatch = new CountDownLatch(4);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    ContextSnapshot snapshot = ContextSnapshot.capture(mockTracer);
+    scope.close();
+
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    futures.add(first.submit(snapshot.wrap(new TestRunnable())));
+    futures.add(first.submit(snapshot.wrap(new TestCallable())));
+    futures.add(second.submit(snapshot.wrap(new TestRunnable())));
+    futures.add(second.submit(snapshot.wrap(new TestCallable())));
+    for (Future<?> future: futures) {
+      future.get();
+    }
+
+    assertEquals(4, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+    first.shutdown();
+    second.shutdown();
+  }
+
+  @Test
+  public void testEntries() throws Exception {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    final ContextSnapshot snapshot = ContextSnapshot.capture(mockTracer)
+        .with("tenant", "a")
+        .with("tenant", "b")
+        .with("deadline", 10L);
+
+    Object tenant = executorService.submit(snapshot.wrap(new Callable<Object>() {
+      @Override
+      public Object call() {
+        assertSame(snapshot, ContextSnapshot.current());
+        // nested captures inherit the entries
+        return ContextSnapshot.capture(mockTracer).get("tenant");
+      }
+    })).get();
+
+    assertEquals("b", tenant);
+    assertEquals(10L, snapshot.get("deadline"));
+    assertNull(snapshot.get("missing"));
+    assertNull(ContextSnapshot.current());
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testActivateRestoresPrevious() {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    ContextSnapshot outer = ContextSnapshot.of(mockTracer, parentSpan);
+    ContextSnapshot inner = ContextSnapshot.of(mockTracer, null).with("tenant", "a");
+
+    Scope outerScope = outer.activate();
+    Scope innerScope = inner.activate();
+    assertSame(inner, ContextSnapshot.current());
+    assertSame(parentSpan, mockTracer.activeSpan());
+    innerScope.close();
+    assertSame(outer, ContextSnapshot.current());
+    outerScope.close();
+
+    assertNull(ContextSnapshot.current());
+    assertNull(mockTracer.activeSpan());
+  }
+
+  @Test
+  public void testSameThreadSkipsActivation() {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    MockTracer tracer = new MockTracer(scopeManager);
+    MockSpan parentSpan = tracer.buildSpan("foo").start();
+    ContextSnapshot snapshot = ContextSnapshot.of(tracer, parentSpan);
+
+    Scope scope = snapshot.activate();
+    snapshot.wrap(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }).run();
+    scope.close();
+
+    assertEquals(1, scopeManager.activations.get());
+  }
+}
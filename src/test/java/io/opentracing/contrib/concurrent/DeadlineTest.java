@@ -0,0 +1,245 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class DeadlineTest extends AbstractConcurrentTest {
+
+  private final ExecutorMetrics metrics = new ExecutorMetrics();
+
+  private TracedExecutorService toTraced(ExecutorService executorService) {
+    return toTraced(executorService, true);
+  }
+
+  private TracedExecutorService toTraced(ExecutorService executorService, boolean spanPerTask) {
+    return new TracedExecutorService(executorService, mockTracer,
+        TracedExecutorOptions.builder()
+            .propagateDeadline(true)
+            .spanPerTask(spanPerTask)
+            .addListener(metrics)
+            .build());
+  }
+
+  private static void assertExpired(Future<?> future) throws InterruptedException {
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+  }
+
+  /**
+   * Occupies the only thread of the executor until the latch is released.
+   */
+  private static Runnable blocker(final CountDownLatch release) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  @Test
+  public void testExpiredTasksSkipped() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor());
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = ContextSnapshot.of(mockTracer, parentSpan)
+        .with(Deadline.after(10, TimeUnit.MILLISECONDS))
+        .activate();
+    Future<?> runnableFuture = executorService.submit(new TestRunnable());
+    Future<?> callableFuture = executorService.submit(new TestCallable());
+    scope.close();
+
+    Thread.sleep(20);
+    release.countDown();
+    assertExpired(runnableFuture);
+    assertExpired(callableFuture);
+    executorService.shutdown();
+
+    // no child spans, only the per-task spans tagged as expired
+    assertEquals(2, mockTracer.finishedSpans().size());
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      assertEquals(true, span.tags().get(DeadlineRunnable.EXPIRED_TAG));
+    }
+    assertParentSpan(parentSpan);
+    assertEquals(2, metrics.failed());
+  }
+
+  @Test
+  public void testExpiredTasksWithoutSpanPerTask() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor(), false);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = ContextSnapshot.of(mockTracer, parentSpan)
+        .with(Deadline.after(10, TimeUnit.MILLISECONDS))
+        .activate();
+    Future<?> runnableFuture = executorService.submit(new TestRunnable());
+    Future<?> callableFuture = executorService.submit(new TestCallable());
+    executorService.execute(new TestRunnable());
+    scope.close();
+    // the caller timed out and finished its span
+    parentSpan.finish();
+
+    Thread.sleep(20);
+    release.countDown();
+    assertExpired(runnableFuture);
+    assertExpired(callableFuture);
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+
+    // the finished caller span is not written to, the executed runnable ran anyway
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertNull(parentSpan.tags().get(DeadlineRunnable.EXPIRED_TAG));
+    assertEquals(0, parentSpan.generatedErrors().size());
+    assertEquals(2, metrics.failed());
+    // the blocker and the executed runnable
+    assertEquals(2, metrics.completed());
+  }
+
+  @Test
+  public void testExpiredExecutedTasksComplete() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor());
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = ContextSnapshot.of(mockTracer, parentSpan)
+        .with(Deadline.after(10, TimeUnit.MILLISECONDS))
+        .activate();
+    CompletableFuture<String> supplied = CompletableFuture.supplyAsync(new Supplier<String>() {
+      @Override
+      public String get() {
+        return "foo";
+      }
+    }, executorService);
+    FutureTask<Void> futureTask = new FutureTask<Void>(new TestCallable());
+    executorService.execute(futureTask);
+    scope.close();
+
+    Thread.sleep(20);
+    release.countDown();
+    assertEquals("foo", supplied.get(10, TimeUnit.SECONDS));
+    try {
+      futureTask.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (CancellationException e) {
+      // expected
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+
+    // the per-task spans of both are tagged, only the skipped one failed
+    assertEquals(2, mockTracer.finishedSpans().size());
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      assertEquals(true, span.tags().get(DeadlineRunnable.EXPIRED_TAG));
+    }
+    // the blocker and the supplier
+    assertEquals(2, metrics.completed());
+    assertEquals(1, metrics.failed());
+  }
+
+  @Test
+  public void testExpiredScheduledRunnableFails() throws Exception {
+    ScheduledExecutorService executorService = new TracedScheduledExecutorService(
+        Executors.newSingleThreadScheduledExecutor(), mockTracer,
+        TracedExecutorOptions.builder().propagateDeadline(true).addListener(metrics).build());
+
+    Scope scope = ContextSnapshot.capture(mockTracer)
+        .with(Deadline.after(10, TimeUnit.MILLISECONDS))
+        .activate();
+    Future<?> future = executorService.schedule(new TestRunnable(), 50, TimeUnit.MILLISECONDS);
+    scope.close();
+
+    assertExpired(future);
+    executorService.shutdown();
+    assertEquals(0, mockTracer.finishedSpans().size());
+    assertEquals(1, metrics.failed());
+  }
+
+  @Test
+  public void testTasksBeforeDeadlineRun() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = ContextSnapshot.of(mockTracer, parentSpan)
+        .with(Deadline.after(1, TimeUnit.MINUTES))
+        .activate();
+    executorService.submit(new TestCallable()).get();
+    scope.close();
+    executorService.shutdown();
+
+    assertEquals(2, mockTracer.finishedSpans().size());
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      assertNull(span.tags().get(DeadlineRunnable.EXPIRED_TAG));
+    }
+  }
+
+  @Test
+  public void testTimedInvokeAllUsesDeadline() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor());
+    final CountDownLatch release = new CountDownLatch(1);
+    List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+    callables.add(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        release.await();
+        return null;
+      }
+    });
+
+    Scope scope = ContextSnapshot.capture(mockTracer)
+        .with(Deadline.after(50, TimeUnit.MILLISECONDS))
+        .activate();
+    long start = System.nanoTime();
+    List<Future<Void>> futures = executorService.invokeAll(callables, 1, TimeUnit.MINUTES);
+    scope.close();
+
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    assertTrue(futures.get(0).isCancelled());
+    release.countDown();
+    executorService.shutdown();
+  }
+
+  @Test
+  public void testDeadline() {
+    assertTrue(Deadline.after(0, TimeUnit.SECONDS).isExpired());
+    Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+    assertFalse(deadline.isExpired());
+    assertEquals(TimeUnit.SECONDS.toNanos(1), deadline.clamp(1, TimeUnit.SECONDS));
+    assertTrue(deadline.clamp(1, TimeUnit.HOURS) <= TimeUnit.MINUTES.toNanos(1));
+    assertNull(Deadline.current());
+  }
+}
@@ -0,0 +1,126 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ExecutorMetricsTest extends AbstractConcurrentTest {
+
+  private final ExecutorMetrics metrics = new ExecutorMetrics();
+
+  private ExecutorService toTraced(ExecutorService executorService) {
+    return new TracedExecutorService(executorService, mockTracer,
+        TracedExecutorOptions.builder().addListener(metrics).build());
+  }
+
+  @Test
+  public void testCounters() throws InterruptedException {
+    ExecutorService executorService = toTraced(Executors.newFixedThreadPool(2));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> traced = executorService.submit(new TestRunnable());
+    scope.close();
+    Future<?> untraced = executorService.submit(new TestCallable());
+    Future<?> failing = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException();
+      }
+    });
+
+    for (Future<?> future: new Future<?>[] {traced, untraced, failing}) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+    }
+    executorService.shutdown();
+
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      long expectedParentId = "childRunnable".equals(span.operationName())
+          ? parentSpan.context().spanId() : 0;
+      assertEquals(expectedParentId, span.parentId());
+    }
+    assertEquals(3, metrics.submitted());
+    assertEquals(3, metrics.started());
+    assertEquals(2, metrics.completed());
+    assertEquals(1, metrics.failed());
+    assertEquals(0, metrics.running());
+    assertEquals(0, metrics.inFlight());
+    assertEquals(3, metrics.queueWait().count());
+    assertEquals(3, metrics.runTime().count());
+
+    try {
+      executorService.execute(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertEquals(1, metrics.rejected());
+      assertEquals(0, metrics.inFlight());
+    }
+  }
+
+  @Test
+  public void testInFlightIncludesQueuedTasks() throws Exception {
+    ExecutorService executorService = toTraced(Executors.newSingleThreadExecutor());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Future<?> blocking = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    Future<?> queued = executorService.submit(new TestRunnable());
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertEquals(2, metrics.inFlight());
+    assertEquals(1, metrics.running());
+    release.countDown();
+    blocking.get();
+    queued.get();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, metrics.inFlight());
+  }
+
+  @Test
+  public void testPeriodicTaskLeavesInFlightOnce() throws Exception {
+    TracedScheduledExecutorService executorService = new TracedScheduledExecutorService(
+        Executors.newSingleThreadScheduledExecutor(), mockTracer,
+        TracedExecutorOptions.builder().periodicSpans(true).addListener(metrics).build());
+    final CountDownLatch runs = new CountDownLatch(3);
+    ScheduledFuture<?> future = executorService.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        runs.countDown();
+      }
+    }, 0, 1, TimeUnit.MILLISECONDS);
+    assertTrue(runs.await(5, TimeUnit.SECONDS));
+    future.cancel(false);
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(1, metrics.submitted());
+    assertTrue(metrics.completed() >= 3);
+    assertEquals(0, metrics.inFlight());
+  }
+}
@@ -0,0 +1,133 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class FairExecutorServiceTest extends AbstractConcurrentTest {
+
+  private final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+  private Runnable record(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        order.add(name);
+        mockTracer.buildSpan(name).start().finish();
+      }
+    };
+  }
+
+  private Runnable blocker(final CountDownLatch release) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  @Test
+  public void testRoundRobinPerTrace() throws InterruptedException {
+    ExecutorService executorService = new TracedExecutorService(
+        new FairExecutorService(Executors.newSingleThreadExecutor(), mockTracer, 1), mockTracer);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan fanOut = mockTracer.buildSpan("fanOut").start();
+    Scope scope = mockTracer.scopeManager().activate(fanOut);
+    executorService.execute(record("a1"));
+    executorService.execute(record("a2"));
+    executorService.execute(record("a3"));
+    scope.close();
+
+    MockSpan other = mockTracer.buildSpan("other").start();
+    scope = mockTracer.scopeManager().activate(other);
+    executorService.execute(record("b1"));
+    scope.close();
+
+    release.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), order);
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      long expectedTraceId = span.operationName().startsWith("a")
+          ? fanOut.context().traceId() : other.context().traceId();
+      assertEquals(expectedTraceId, span.context().traceId());
+    }
+  }
+
+  @Test
+  public void testSnapshotEntryClassifier() throws InterruptedException {
+    FairExecutorService executorService = new FairExecutorService(
+        Executors.newSingleThreadExecutor(), mockTracer, 1,
+        TaskClassifiers.snapshotEntry("tenant"));
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    Scope scope = ContextSnapshot.capture(mockTracer).with("tenant", "a").activate();
+    executorService.execute(record("a1"));
+    executorService.execute(record("a2"));
+    scope.close();
+    scope = ContextSnapshot.capture(mockTracer).with("tenant", "b").activate();
+    executorService.execute(record("b1"));
+    scope.close();
+    assertEquals(3, executorService.queuedTasks());
+
+    release.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(Arrays.asList("a1", "b1", "a2"), order);
+  }
+
+  @Test
+  public void testFailingTaskDoesNotStall() throws InterruptedException {
+    FairExecutorService executorService = new FairExecutorService(
+        Executors.newSingleThreadExecutor(), mockTracer, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException();
+      }
+    });
+    executorService.execute(record("after"));
+
+    release.countDown();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(Collections.singletonList("after"), order);
+  }
+
+  @Test
+  public void testShutdownNow() {
+    FairExecutorService executorService = new FairExecutorService(
+        Executors.newSingleThreadExecutor(), mockTracer, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+    Runnable queued = record("queued");
+    executorService.execute(queued);
+
+    assertEquals(Collections.singletonList(queued), executorService.shutdownNow());
+    assertTrue(executorService.isShutdown());
+  }
+}
@@ -0,0 +1,49 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketBounds() {
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+    int previousIndex = -1;
+    for (long value: values) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertTrue(index >= previousIndex);
+      assertTrue(index < LatencyHistogram.BUCKETS);
+      long upperBound = LatencyHistogram.bucketUpperBound(index);
+      assertTrue(upperBound >= value);
+      assertTrue(upperBound - value <= value / LatencyHistogram.SUB_BUCKETS);
+      previousIndex = index;
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.valueAtPercentile(50));
+
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000);
+    }
+    assertEquals(100, histogram.count());
+    assertEquals(100000, histogram.max());
+    assertEquals(50500, histogram.mean(), 0.001);
+
+    long median = histogram.valueAtPercentile(50);
+    assertTrue(median >= 50000 && median <= 50000 + 50000 / LatencyHistogram.SUB_BUCKETS);
+    assertEquals(100000, histogram.valueAtPercentile(100));
+  }
+
+  @Test
+  public void testNegativeRecordedAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    assertEquals(1, histogram.count());
+    assertEquals(0, histogram.valueAtPercentile(99));
+  }
+}
@@ -0,0 +1,59 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class PoolSizeControllerTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final ThreadPoolExecutor pool = new ThreadPoolExecutor(8, 8, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>());
+  private final PoolSizeController controller = new PoolSizeController(pool, 2, 32, 10,
+      TimeUnit.MILLISECONDS);
+
+  @After
+  public void after() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testGrowsOnQueueWait() {
+    // 8 threads busy all the time, tasks waited 50ms on average
+    controller.adjust(SECOND, 100, 8 * SECOND, 100 * 50 * MILLISECOND);
+    assertEquals(10, pool.getCorePoolSize());
+    assertEquals(10, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void testGrowsToLittlesLaw() {
+    // 20 threads worth of work although the pool has only 8
+    assertEquals(24, controller.targetPoolSize(8, SECOND, 1000, 20 * SECOND, 0));
+  }
+
+  @Test
+  public void testShrinksGradually() {
+    // 1 busy thread, no queue wait
+    controller.adjust(SECOND, 100, SECOND, 0);
+    assertEquals(7, pool.getCorePoolSize());
+    assertEquals(7, pool.getMaximumPoolSize());
+  }
+
+  @Test
+  public void testBounds() {
+    assertEquals(32, controller.targetPoolSize(30, SECOND, 1000, 100 * SECOND, 0));
+    assertEquals(2, controller.targetPoolSize(2, SECOND, 10, MILLISECOND, 0));
+    assertEquals(8, controller.targetPoolSize(8, SECOND, 0, 0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBounds() {
+    new PoolSizeController(pool, 4, 2, 10, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,118 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+
+public class PropagationPolicyTest extends AbstractConcurrentTest {
+
+  private static final PropagationPolicy NEVER = new PropagationPolicy() {
+    @Override
+    public boolean propagate(Span span) {
+      return false;
+    }
+  };
+
+  @Test
+  public void testNotPropagatedTaskPassedUntouched() {
+    final List<Runnable> submitted = new ArrayList<Runnable>();
+    Executor executor = new TracedExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        submitted.add(command);
+      }
+    }, mockTracer, TracedExecutorOptions.builder().propagationPolicy(NEVER).build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Runnable runnable = new TestRunnable();
+    executor.execute(runnable);
+    scope.close();
+
+    assertSame(runnable, submitted.get(0));
+  }
+
+  @Test
+  public void testNotPropagatedTaskRunsWithoutSpan() throws InterruptedException {
+    final List<Thread> threads = new ArrayList<Thread>();
+    Executor executor = new TracedExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        Thread thread = createThread(command);
+        threads.add(thread);
+        thread.start();
+      }
+    }, mockTracer, TracedExecutorOptions.builder()
+        .propagationPolicy(NEVER)
+        .addListener(new ExecutorMetrics())
+        .build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    final Span[] activeInTask = new Span[1];
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        activeInTask[0] = mockTracer.activeSpan();
+      }
+    });
+    scope.close();
+    threads.get(0).join();
+
+    assertEquals(null, activeInTask[0]);
+  }
+
+  @Test
+  public void testTraceIdRatio() {
+    PropagationPolicy policy = PropagationPolicies.traceIdRatio(0.25);
+    int propagated = 0;
+    int total = 10000;
+    for (int i = 0; i < total; i++) {
+      MockSpan span = mockTracer.buildSpan("foo").start();
+      if (policy.propagate(span)) {
+        propagated++;
+      }
+      // the decision is stable for a trace
+      assertEquals(policy.propagate(span), policy.propagate(span));
+    }
+    assertTrue(String.valueOf(propagated), propagated > total * 0.2 && propagated < total * 0.3);
+    assertSame(PropagationPolicies.always(), PropagationPolicies.traceIdRatio(1));
+  }
+
+  @Test
+  public void testOptionsWithoutPropagation() {
+    ExecutorMetrics metrics = new ExecutorMetrics();
+    RejectionFallback fallback = RejectionFallbacks.callerRuns();
+    TracedExecutorOptions options = TracedExecutorOptions.builder()
+        .traceWithActiveSpanOnly(false)
+        .taskEvents(true)
+        .addListener(metrics)
+        .rejectionFallback(fallback)
+        .propagateDeadline(true)
+        .build()
+        .withoutPropagation();
+
+    assertFalse(options.traceWithActiveSpanOnly());
+    assertFalse(options.propagateDeadline());
+    assertTrue(options.taskEvents());
+    assertSame(metrics, options.listener());
+    assertSame(fallback, options.rejectionFallback());
+    assertSame(PropagationPolicies.never(), options.propagationPolicy());
+  }
+
+  @Test
+  public void testNever() {
+    MockSpan span = mockTracer.buildSpan("foo").start();
+    assertFalse(PropagationPolicies.never().propagate(span));
+    assertTrue(PropagationPolicies.always().propagate(span));
+  }
+}
@@ -0,0 +1,186 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class RejectionFallbacksTest extends AbstractConcurrentTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private static ExecutorService shutDownExecutor() {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    executorService.shutdown();
+    return executorService;
+  }
+
+  /**
+   * @return running executor which rejects tasks as its only thread is busy until the test ends
+   */
+  private ExecutorService saturatedExecutor() {
+    ExecutorService executorService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new SynchronousQueue<Runnable>());
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    return executorService;
+  }
+
+  @After
+  public void releaseSaturatedExecutor() {
+    release.countDown();
+  }
+
+  /**
+   * Rejects the first n tasks and runs the rest on the calling thread.
+   */
+  static class RejectingExecutor implements Executor {
+    final AtomicInteger rejections;
+
+    RejectingExecutor(int rejections) {
+      this.rejections = new AtomicInteger(rejections);
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+      if (rejections.getAndDecrement() > 0) {
+        throw new RejectedExecutionException();
+      }
+      runnable.run();
+    }
+  }
+
+  @Test
+  public void testRejectionRecorded() {
+    TracedExecutorService executorService = new TracedExecutorService(shutDownExecutor(),
+        mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    try {
+      executorService.submit(new TestCallable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    scope.close();
+
+    assertEquals(1, executorService.rejectedTasks());
+    assertEquals(1, parentSpan.logEntries().size());
+    assertEquals(TracedExecutor.REJECTED_EVENT,
+        parentSpan.logEntries().get(0).fields().get("event"));
+  }
+
+  @Test
+  public void testCallerRuns() throws Exception {
+    TracedExecutorService executorService = new TracedExecutorService(saturatedExecutor(),
+        mockTracer,
+        TracedExecutorOptions.builder().rejectionFallback(RejectionFallbacks.callerRuns()).build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> future = executorService.submit(new TestRunnable());
+    executorService.execute(new TestRunnable());
+    scope.close();
+
+    assertTrue(future.isDone());
+    future.get();
+    assertEquals(2, executorService.rejectedTasks());
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testCallerRunsWithoutActiveSpan() {
+    TracedExecutor executor = new TracedExecutor(saturatedExecutor(), mockTracer,
+        TracedExecutorOptions.builder().rejectionFallback(RejectionFallbacks.callerRuns()).build());
+
+    executor.execute(new TestRunnable());
+
+    assertEquals(1, executor.rejectedTasks());
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(null);
+  }
+
+  @Test
+  public void testCallerRunsRejectsAfterShutdown() {
+    TracedExecutor executor = new TracedExecutor(shutDownExecutor(), mockTracer,
+        TracedExecutorOptions.builder().rejectionFallback(RejectionFallbacks.callerRuns()).build());
+
+    try {
+      executor.execute(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertEquals(1, executor.rejectedTasks());
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testRetry() {
+    RejectingExecutor delegate = new RejectingExecutor(2);
+    TracedExecutor executor = new TracedExecutor(delegate, mockTracer,
+        TracedExecutorOptions.builder()
+            .rejectionFallback(RejectionFallbacks.retry(2, 1, TimeUnit.MILLISECONDS))
+            .build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executor.execute(new TestRunnable());
+    scope.close();
+
+    assertEquals(1, executor.rejectedTasks());
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testRetryExhausted() {
+    TracedExecutor executor = new TracedExecutor(new RejectingExecutor(3), mockTracer,
+        TracedExecutorOptions.builder()
+            .rejectionFallback(RejectionFallbacks.retry(2, 1, TimeUnit.MILLISECONDS))
+            .build());
+
+    RejectedExecutionException rejection = null;
+    try {
+      executor.execute(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      rejection = e;
+    }
+
+    assertSame(RejectedExecutionException.class, rejection.getClass());
+    assertEquals(1, executor.rejectedTasks());
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRetryAttemptsPositive() {
+    RejectionFallbacks.retry(0, 1, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,56 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.mock.MockSpan;
+import java.util.Map;
+import org.junit.Test;
+
+public class TaskEventsTest extends AbstractConcurrentTest {
+
+  @Test
+  public void testNestedTasks() {
+    MockSpan outer = mockTracer.buildSpan("outer").start();
+    MockSpan inner = mockTracer.buildSpan("inner").start();
+    TaskEvents events = TaskEvents.current();
+
+    int outerMark = events.start(10, 15);
+    int innerMark = events.start(20, 20);
+    assertTrue(events.end(innerMark, 25, inner, false, null));
+    assertTrue(events.end(outerMark, 30, outer, true, null));
+
+    Map<String, ?> fields = outer.logEntries().get(0).fields();
+    assertEquals(TaskEvents.EVENT, fields.get("event"));
+    assertEquals(5L, fields.get(InstrumentedTask.QUEUE_WAIT_TAG));
+    assertEquals(15L, fields.get(InstrumentedTask.EXEC_TAG));
+    assertEquals(true, fields.get(TaskEvents.EXPIRED_FIELD));
+    assertEquals(5L, inner.logEntries().get(0).fields().get(InstrumentedTask.EXEC_TAG));
+  }
+
+  @Test
+  public void testOverwrittenEventsDropped() {
+    MockSpan outer = mockTracer.buildSpan("outer").start();
+    MockSpan inner = mockTracer.buildSpan("inner").start();
+    TaskEvents events = TaskEvents.current();
+
+    int outerMark = events.start(0, 0);
+    for (int i = 0; i < TaskEvents.CAPACITY; i++) {
+      assertTrue(events.end(events.start(i, i), i, inner, false, null));
+    }
+    assertFalse(events.end(outerMark, 1, outer, false, null));
+    assertTrue(outer.logEntries().isEmpty());
+  }
+
+  @Test
+  public void testFinishedSpanDoesNotFailTask() {
+    MockSpan span = mockTracer.buildSpan("foo").start();
+    TaskEvents events = TaskEvents.current();
+
+    int mark = events.start(0, 0);
+    span.finish();
+    RuntimeException error = new RuntimeException();
+    assertFalse(events.end(mark, 1, span, false, error));
+  }
+}
@@ -0,0 +1,166 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.Test;
+
+public class TaskStatisticsTest extends AbstractConcurrentTest {
+
+  private static class FailingRunnable implements Runnable {
+    @Override
+    public void run() {
+      throw new IllegalStateException();
+    }
+  }
+
+  private ExecutorService toTraced(TaskStatistics statistics) {
+    return new TracedExecutorService(Executors.newFixedThreadPool(2), mockTracer,
+        TracedExecutorOptions.builder().addListener(statistics).build());
+  }
+
+  @Test
+  public void testGroupsByTaskClass() throws InterruptedException {
+    TaskStatistics statistics = new TaskStatistics();
+    ExecutorService executorService = toTraced(statistics);
+
+    executorService.submit(new TestRunnable());
+    executorService.submit(new TestCallable());
+    executorService.submit(new TestCallable());
+    executorService.submit(new FailingRunnable());
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    Map<String, TaskStatistics.Snapshot> snapshot = statistics.snapshot();
+    assertEquals(3, snapshot.size());
+    assertEquals(1, snapshot.get(TestRunnable.class.getName()).getCompleted());
+    TaskStatistics.Snapshot callables = snapshot.get(TestCallable.class.getName());
+    assertEquals(2, callables.getSubmitted());
+    assertEquals(2, callables.getCompleted());
+    assertTrue(callables.getRunTimeMax() > 0);
+    TaskStatistics.Snapshot failing = snapshot.get(FailingRunnable.class.getName());
+    assertEquals(1, failing.getFailed());
+    assertEquals(0, failing.getCompleted());
+  }
+
+  @Test
+  public void testSnapshotEntryClassifiedOnSubmit() throws InterruptedException {
+    TaskStatistics statistics = new TaskStatistics(TaskClassifiers.snapshotEntry("tenant"), 10);
+    ExecutorMetrics metrics = new ExecutorMetrics();
+    ExecutorService executorService = new TracedExecutorService(Executors.newFixedThreadPool(2),
+        mockTracer,
+        TracedExecutorOptions.builder().addListener(statistics).addListener(metrics).build());
+    submitAsTenant(executorService);
+
+    assertTenantGroup(statistics);
+    assertEquals(3, metrics.completed());
+  }
+
+  @Test
+  public void testSnapshotEntryThreadPoolExecutor() throws InterruptedException {
+    TaskStatistics statistics = new TaskStatistics(TaskClassifiers.snapshotEntry("tenant"), 10);
+    ExecutorService executorService = new TracedThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), mockTracer,
+        TracedExecutorOptions.builder().addListener(statistics).build());
+    submitAsTenant(executorService);
+
+    assertTenantGroup(statistics);
+  }
+
+  private void submitAsTenant(ExecutorService executorService) throws InterruptedException {
+    Scope scope = ContextSnapshot.capture(mockTracer).with("tenant", "acme").activate();
+    try {
+      executorService.submit(new TestRunnable());
+      executorService.submit(new TestCallable());
+      executorService.execute(new TestRunnable());
+    } finally {
+      scope.close();
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  private static void assertTenantGroup(TaskStatistics statistics) {
+    // start and finish run on worker threads without the snapshot, but count in the tenant group
+    Map<String, TaskStatistics.Snapshot> snapshot = statistics.snapshot();
+    assertEquals(snapshot.keySet().toString(), 1, snapshot.size());
+    TaskStatistics.Snapshot tenant = snapshot.get("acme");
+    assertEquals(3, tenant.getSubmitted());
+    assertEquals(3, tenant.getCompleted());
+    assertTrue(tenant.getRunTimeMax() > 0);
+  }
+
+  @Test
+  public void testMaxGroups() throws InterruptedException {
+    TaskStatistics statistics = new TaskStatistics(TaskClassifiers.taskClass(), 1);
+    ExecutorService executorService = toTraced(statistics);
+
+    executorService.submit(new TestRunnable());
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    statistics.onSubmit(new TestCallable(), null);
+
+    Map<String, TaskStatistics.Snapshot> snapshot = statistics.snapshot();
+    assertEquals(2, snapshot.size());
+    assertEquals(1, snapshot.get(TaskStatistics.OTHER_GROUP).getSubmitted());
+  }
+
+  @Test
+  public void testJmx() throws Exception {
+    TaskStatistics statistics = new TaskStatistics();
+    statistics.onSubmit(new TestRunnable(), null);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("io.opentracing.contrib.concurrent:type=TaskStatistics");
+    server.registerMBean(statistics, name);
+    try {
+      TabularData data = (TabularData) server.getAttribute(name, "Statistics");
+      assertEquals(1, data.size());
+      CompositeData row = (CompositeData) data.values().iterator().next();
+      CompositeData value = (CompositeData) row.get("value");
+      assertEquals(1L, value.get("submitted"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  @Test
+  public void testRejectedTaskClassifiedOnce() {
+    final AtomicInteger classifications = new AtomicInteger();
+    TaskStatistics statistics = new TaskStatistics(new TaskClassifier() {
+      @Override
+      public String classify(Object task, Span span) {
+        classifications.incrementAndGet();
+        return "group";
+      }
+    }, 10);
+    ExecutorService delegate = Executors.newSingleThreadExecutor();
+    delegate.shutdown();
+    ExecutorService executorService = new TracedExecutorService(delegate, mockTracer,
+        TracedExecutorOptions.builder().addListener(statistics).addListener(new ExecutorMetrics()).build());
+
+    try {
+      executorService.submit(new TestCallable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertEquals(1, classifications.get());
+    assertEquals(1, statistics.snapshot().get("group").getRejected());
+  }
+}
@@ -0,0 +1,147 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Test;
+
+public class TracedBlockingQueueTest extends AbstractConcurrentTest {
+
+  private final TracedBlockingQueue<String> queue =
+      new TracedBlockingQueue<String>(new LinkedBlockingQueue<Object>(), mockTracer);
+
+  private final List<Span> spans = new ArrayList<Span>();
+
+  private final Consumer<String> recordSpan = new Consumer<String>() {
+    @Override
+    public void accept(String element) {
+      spans.add(mockTracer.activeSpan());
+    }
+  };
+
+  @Test
+  public void testTakeInProducerSpan() throws Exception {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    queue.put("a");
+    scope.close();
+
+    Thread consumer = createThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          queue.take(new Consumer<String>() {
+            @Override
+            public void accept(String element) {
+              mockTracer.buildSpan("consume").start().finish();
+            }
+          });
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    consumer.start();
+    consumer.join();
+
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+    assertNull(mockTracer.activeSpan());
+  }
+
+  @Test
+  public void testPollTimeout() throws InterruptedException {
+    assertFalse(queue.poll(1, TimeUnit.MILLISECONDS, recordSpan));
+    queue.offer("a");
+    assertTrue(queue.poll(1, TimeUnit.MILLISECONDS, recordSpan));
+    assertEquals(1, spans.size());
+    assertNull(spans.get(0));
+  }
+
+  @Test
+  public void testDrainToActivatesPerSpan() {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    MockTracer tracer = new MockTracer(scopeManager);
+    TracedBlockingQueue<String> queue =
+        new TracedBlockingQueue<String>(new ArrayBlockingQueue<Object>(10), tracer);
+    MockSpan first = tracer.buildSpan("first").start();
+    MockSpan second = tracer.buildSpan("second").start();
+
+    for (MockSpan span: Arrays.asList(first, first, first, second, second)) {
+      Scope scope = tracer.scopeManager().activate(span);
+      queue.add("element");
+      scope.close();
+    }
+    queue.add("untraced");
+    int activationsBefore = scopeManager.activations.get();
+
+    final List<Span> spans = new ArrayList<Span>();
+    final MockTracer consumerTracer = tracer;
+    assertEquals(6, queue.drainTo(new Consumer<String>() {
+      @Override
+      public void accept(String element) {
+        spans.add(consumerTracer.activeSpan());
+      }
+    }, 10));
+
+    assertEquals(Arrays.<Span>asList(first, first, first, second, second, null), spans);
+    assertEquals(2, scopeManager.activations.get() - activationsBefore);
+    assertNull(tracer.activeSpan());
+  }
+
+  @Test
+  public void testDrainToKeepsRestWhenConsumerThrows() {
+    queue.add("a");
+    queue.add("b");
+    queue.add("c");
+
+    try {
+      queue.drainTo(new Consumer<String>() {
+        @Override
+        public void accept(String element) {
+          if (element.equals("b")) {
+            throw new IllegalStateException();
+          }
+        }
+      }, 10);
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals(1, queue.size());
+    assertEquals("c", queue.poll());
+    assertNull(mockTracer.activeSpan());
+  }
+
+  @Test
+  public void testPlainMethodsUnwrap() throws InterruptedException {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    queue.add("a");
+    queue.add("b");
+    queue.add("c");
+    scope.close();
+
+    assertTrue(queue.contains("b"));
+    assertTrue(queue.remove("b"));
+    assertEquals("a", queue.peek());
+    assertEquals("a", queue.take());
+    List<String> drained = new ArrayList<String>();
+    assertEquals(1, queue.drainTo(drained));
+    assertEquals(Arrays.asList("c"), drained);
+    assertSame(null, queue.poll());
+  }
+}
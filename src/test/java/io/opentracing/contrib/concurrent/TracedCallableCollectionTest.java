@@ -0,0 +1,47 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.mock.MockSpan;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+public class TracedCallableCollectionTest extends AbstractConcurrentTest {
+
+  @Test
+  public void testWrapsLazily() throws Exception {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    List<TestCallable> callables = Arrays.asList(new TestCallable(), new TestCallable());
+
+    ExecutorService delegate = Executors.newSingleThreadExecutor();
+    try {
+      TracedExecutor executor = new TracedExecutor(delegate, mockTracer);
+      Collection<Callable<Void>> traced =
+          new TracedCallableCollection<Void>(callables, executor, parentSpan, "invokeAll");
+      assertEquals(2, traced.size());
+      assertFalse(traced.isEmpty());
+
+      Iterator<Callable<Void>> iterator = traced.iterator();
+      assertTrue(iterator.hasNext());
+      Callable<Void> first = iterator.next();
+      assertTrue(first instanceof TracedCallable);
+      first.call();
+      assertTrue(iterator.hasNext());
+      iterator.next();
+      assertFalse(iterator.hasNext());
+    } finally {
+      delegate.shutdown();
+    }
+
+    assertParentSpan(parentSpan);
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+}
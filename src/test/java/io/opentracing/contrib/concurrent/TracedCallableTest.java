@@ -10,6 +10,7 @@ import java.util.concurrent.FutureTask;
 import org.junit.Test;
 
 import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
 
 /**
  * @author Pavol Loffay
@@ -47,4 +48,20 @@ public class TracedCallableTest extends AbstractConcurrentTest {
     assertParentSpan(null);
     assertEquals(1, mockTracer.finishedSpans().size());
   }
+
+  @Test
+  public void testTracedCallableSameThreadNoActivation() throws Exception {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    mockTracer = new MockTracer(scopeManager);
+    MockSpan parent = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parent);
+
+    toTraced(new TestCallable()).call();
+    assertEquals(parent, mockTracer.activeSpan());
+    scope.close();
+
+    assertEquals(1, scopeManager.activations.get());
+    assertParentSpan(parent);
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
 }
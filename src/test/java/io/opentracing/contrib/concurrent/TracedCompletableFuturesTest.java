@@ -0,0 +1,79 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class TracedCompletableFuturesTest extends AbstractConcurrentTest {
+
+  class ChildSpanFunction implements Function<Integer, Integer> {
+    @Override
+    public Integer apply(Integer value) {
+      mockTracer.buildSpan("stage").start().finish();
+      return value + 1;
+    }
+  }
+
+  class ChildSpanSupplier implements Supplier<Integer> {
+    @Override
+    public Integer get() {
+      mockTracer.buildSpan("stage").start().finish();
+      return 0;
+    }
+  }
+
+  @Test
+  public void testChain() throws ExecutionException, InterruptedException {
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Executor stages = TracedCompletableFutures.stageExecutor(executorService, mockTracer);
+    CompletableFuture<Integer> future = TracedCompletableFutures
+        .supplyAsync(new ChildSpanSupplier(), executorService, mockTracer)
+        .thenApplyAsync(new ChildSpanFunction(), stages)
+        .thenApplyAsync(new ChildSpanFunction(), stages)
+        .thenApply(new ChildSpanFunction());
+    scope.close();
+
+    assertEquals(3, future.get().intValue());
+    executorService.shutdown();
+    assertEquals(4, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testNoReactivationOnSameThread() throws ExecutionException, InterruptedException {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    mockTracer = new MockTracer(scopeManager);
+    Executor sameThread = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    };
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Executor stages = TracedCompletableFutures.stageExecutor(sameThread, mockTracer);
+    CompletableFuture<Integer> future = CompletableFuture.supplyAsync(new ChildSpanSupplier(), stages)
+        .thenApplyAsync(new ChildSpanFunction(), stages)
+        .thenApplyAsync(new ChildSpanFunction(), stages);
+    scope.close();
+
+    assertEquals(2, future.get().intValue());
+    assertEquals(1, scopeManager.activations.get());
+    assertEquals(3, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+}
@@ -1,6 +1,7 @@
 package io.opentracing.contrib.concurrent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import io.opentracing.Scope;
 import java.util.Arrays;
@@ -8,6 +9,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -209,4 +211,48 @@ public class TracedExecutorServiceTest extends AbstractConcurrentTest {
     assertEquals(2, mockTracer.finishedSpans().size());
   }
 
+  @Test
+  public void testSubmitCallableSpanPerTask() throws InterruptedException, ExecutionException {
+    ExecutorService executorService = new TracedExecutorService(
+        Executors.newFixedThreadPool(NUMBER_OF_THREADS), mockTracer,
+        TracedExecutorOptions.builder().spanPerTask(true).build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<Void> future = executorService.submit(new TestCallable());
+    scope.close();
+
+    future.get();
+    assertEquals(2, mockTracer.finishedSpans().size());
+    MockSpan childSpan = mockTracer.finishedSpans().get(0);
+    MockSpan taskSpan = mockTracer.finishedSpans().get(1);
+    assertEquals("childCallable", childSpan.operationName());
+    assertEquals("submit", taskSpan.operationName());
+    assertEquals(parentSpan.context().spanId(), taskSpan.parentId());
+    assertEquals(taskSpan.context().spanId(), childSpan.parentId());
+    assertTrue(taskSpan.tags().get(InstrumentedTask.QUEUE_WAIT_TAG) instanceof Long);
+    assertTrue(taskSpan.tags().get(InstrumentedTask.EXEC_TAG) instanceof Long);
+  }
+
+  @Test
+  public void testSubmitTaskEvents() throws InterruptedException, ExecutionException {
+    ExecutorService executorService = new TracedExecutorService(
+        Executors.newFixedThreadPool(NUMBER_OF_THREADS), mockTracer,
+        TracedExecutorOptions.builder().taskEvents(true).build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executorService.submit(new TestCallable()).get();
+    executorService.submit(new TestRunnable()).get();
+    scope.close();
+
+    // no span per task, only the child spans of the tasks and one log entry per task
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertEquals(2, parentSpan.logEntries().size());
+    for (MockSpan.LogEntry entry: parentSpan.logEntries()) {
+      assertEquals(TaskEvents.EVENT, entry.fields().get("event"));
+      assertTrue(entry.fields().get(InstrumentedTask.QUEUE_WAIT_TAG) instanceof Long);
+      assertTrue(entry.fields().get(InstrumentedTask.EXEC_TAG) instanceof Long);
+    }
+  }
 }
@@ -1,10 +1,15 @@
 package io.opentracing.contrib.concurrent;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import io.opentracing.Scope;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -36,4 +41,43 @@ public class TracedExecutorTest extends AbstractConcurrentTest {
     countDownLatch.await();
     assertEquals(2, mockTracer.finishedSpans().size());
   }
+
+  @Test
+  public void testExecuteNoActiveSpanPassesTaskUntouched() {
+    final List<Runnable> submitted = new ArrayList<Runnable>();
+    Executor executor = new TracedExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        submitted.add(command);
+      }
+    }, mockTracer);
+
+    Runnable runnable = new TestRunnable();
+    executor.execute(runnable);
+    assertEquals(1, submitted.size());
+    assertSame(runnable, submitted.get(0));
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testExecuteSpanPerTask() throws InterruptedException {
+    ExecutorService delegate = Executors.newSingleThreadExecutor();
+    Executor executor = new TracedExecutor(delegate, mockTracer,
+        TracedExecutorOptions.builder().spanPerTask(true).build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executor.execute(new TestRunnable());
+    scope.close();
+
+    countDownLatch.await();
+    delegate.shutdown();
+    delegate.awaitTermination(5, TimeUnit.SECONDS);
+    assertEquals(2, mockTracer.finishedSpans().size());
+    MockSpan childSpan = mockTracer.finishedSpans().get(0);
+    MockSpan taskSpan = mockTracer.finishedSpans().get(1);
+    assertEquals("execute", taskSpan.operationName());
+    assertEquals(parentSpan.context().spanId(), taskSpan.parentId());
+    assertEquals(taskSpan.context().spanId(), childSpan.parentId());
+  }
 }
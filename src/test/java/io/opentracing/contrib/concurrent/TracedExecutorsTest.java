@@ -0,0 +1,12 @@
+package io.opentracing.contrib.concurrent;
+
+import org.junit.Test;
+
+public class TracedExecutorsTest extends AbstractConcurrentTest {
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testVirtualThreadsUnsupported() {
+    // the Java 21 version is only loaded from the multi-release jar
+    TracedExecutors.newVirtualThreadPerTaskExecutor(mockTracer);
+  }
+}
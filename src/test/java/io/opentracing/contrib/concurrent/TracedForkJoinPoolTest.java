@@ -0,0 +1,161 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class TracedForkJoinPoolTest extends AbstractConcurrentTest {
+
+  private static final int NUMBER_OF_THREADS = 4;
+
+  class Fibonacci extends TracedRecursiveTask<Integer> {
+    private final int n;
+
+    Fibonacci(int n) {
+      super(mockTracer);
+      this.n = n;
+    }
+
+    @Override
+    protected Integer doCompute() {
+      if (n <= 1) {
+        mockTracer.buildSpan("leaf").start().finish();
+        return n;
+      }
+      Fibonacci left = new Fibonacci(n - 1);
+      left.fork();
+      return new Fibonacci(n - 2).invoke() + left.join();
+    }
+  }
+
+  class Leaves extends TracedRecursiveAction {
+    private final int count;
+
+    Leaves(int count) {
+      super(mockTracer);
+      this.count = count;
+    }
+
+    @Override
+    protected void doCompute() {
+      if (count == 1) {
+        mockTracer.buildSpan("leaf").start().finish();
+        return;
+      }
+      invokeAll(new Leaves(count / 2), new Leaves(count - count / 2));
+    }
+  }
+
+  @Test
+  public void testRecursiveTask() {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    int result = pool.invoke(new Fibonacci(10));
+    scope.close();
+
+    assertEquals(55, result);
+    // fib(10) has 89 leaves
+    assertEquals(89, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testRecursiveActionSubmittedWithoutSpan() throws ExecutionException, InterruptedException {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Leaves leaves = new Leaves(64);
+    scope.close();
+
+    // the span is captured when the task is created
+    pool.submit(leaves).get();
+    assertEquals(64, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testPlainForkJoinTaskSubmittedUnchanged() {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    RecursiveAction task = new RecursiveAction() {
+      @Override
+      protected void compute() {
+        mockTracer.buildSpan("child").start().finish();
+      }
+    };
+    ForkJoinTask<Void> submitted = pool.submit(task);
+    scope.close();
+    submitted.join();
+
+    assertSame(task, submitted);
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(null);
+  }
+
+  @Test
+  public void testSubmitRunnable() throws ExecutionException, InterruptedException {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    pool.submit(new TestRunnable()).get();
+    scope.close();
+
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testInvokeAll() throws InterruptedException, ExecutionException {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+    countDownLatch = new CountDownLatch(4);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    for (Future<Void> future: pool.invokeAll(Arrays.asList(new TestCallable(),
+        new TestCallable()))) {
+      future.get();
+    }
+    for (Future<Void> future: pool.invokeAll(Arrays.asList(new TestCallable(),
+        new TestCallable()), 5, TimeUnit.SECONDS)) {
+      future.get();
+    }
+    scope.close();
+
+    assertEquals(4, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testInvokeAny()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    ForkJoinPool pool = new TracedForkJoinPool(NUMBER_OF_THREADS, mockTracer);
+    countDownLatch = new CountDownLatch(2);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    pool.invokeAny(Arrays.asList(new TestCallable()));
+    pool.invokeAny(Arrays.asList(new TestCallable()), 5, TimeUnit.SECONDS);
+    scope.close();
+
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+}
@@ -0,0 +1,180 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class TracedHashedWheelTimerTest extends AbstractConcurrentTest {
+
+  private final TracedHashedWheelTimer timer = new TracedHashedWheelTimer(mockTracer, 1,
+      TimeUnit.MILLISECONDS, 8, null, Executors.defaultThreadFactory());
+
+  @After
+  public void after() throws InterruptedException {
+    timer.shutdownNow();
+  }
+
+  @Test
+  public void testScheduleRunsInSpan() throws Exception {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    timer.schedule(new TestRunnable(), 5, TimeUnit.MILLISECONDS);
+    ScheduledFuture<Void> future = timer.schedule(new TestCallable(), 20, TimeUnit.MILLISECONDS);
+    scope.close();
+
+    future.get();
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testDelayLongerThanWheel() throws Exception {
+    long start = System.nanoTime();
+    timer.schedule(new TestCallable(), 30, TimeUnit.MILLISECONDS).get();
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    final AtomicInteger runs = new AtomicInteger();
+    ScheduledFuture<?> cancelled = timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+      }
+    }, 20, TimeUnit.MILLISECONDS);
+    assertTrue(cancelled.cancel(false));
+    timer.schedule(new TestCallable(), 40, TimeUnit.MILLISECONDS).get();
+
+    assertTrue(cancelled.isCancelled());
+    assertEquals(0, runs.get());
+    assertEquals(0, timer.pendingTasks());
+  }
+
+  @Test
+  public void testFixedRate() throws Exception {
+    final CountDownLatch runs = new CountDownLatch(3);
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    ScheduledFuture<?> future = timer.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        mockTracer.buildSpan("periodic").start().finish();
+        runs.countDown();
+      }
+    }, 0, 2, TimeUnit.MILLISECONDS);
+    scope.close();
+
+    assertTrue(runs.await(5, TimeUnit.SECONDS));
+    future.cancel(false);
+    assertTrue(mockTracer.finishedSpans().size() >= 3);
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    ScheduledFuture<Void> future = timer.schedule(new TestCallable(), 10, TimeUnit.MILLISECONDS);
+    timer.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }, 1, 1, TimeUnit.MILLISECONDS);
+    timer.shutdown();
+    try {
+      timer.execute(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+    assertTrue(future.isDone());
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testShutdownCancelsPeriodicTasks() throws Exception {
+    final AtomicInteger runs = new AtomicInteger();
+    final CountDownLatch firstRun = new CountDownLatch(1);
+    ScheduledFuture<?> running = timer.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        runs.incrementAndGet();
+        firstRun.countDown();
+      }
+    }, 0, 5, TimeUnit.MILLISECONDS);
+    ScheduledFuture<?> waiting = timer.scheduleWithFixedDelay(new TestRunnable(), 1, 1,
+        TimeUnit.HOURS);
+    assertTrue(firstRun.await(5, TimeUnit.SECONDS));
+    timer.shutdown();
+
+    assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+    int runsAtTermination = runs.get();
+    assertTrue(running.isCancelled());
+    assertTrue(waiting.isCancelled());
+    assertEquals(0, timer.pendingTasks());
+    Thread.sleep(20);
+    assertEquals(runsAtTermination, runs.get());
+  }
+
+  @Test
+  public void testDelayOverflow() throws Exception {
+    ScheduledFuture<?> far =
+        timer.schedule(new TestRunnable(), Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    ScheduledFuture<?> farther = timer.schedule(new TestRunnable(), Long.MAX_VALUE, TimeUnit.DAYS);
+    ScheduledFuture<?> periodic = timer.scheduleAtFixedRate(new TestRunnable(), Long.MAX_VALUE,
+        Long.MAX_VALUE, TimeUnit.DAYS);
+    ScheduledFuture<String> near = timer.schedule(new Callable<String>() {
+      @Override
+      public String call() {
+        return "done";
+      }
+    }, 1, TimeUnit.MILLISECONDS);
+
+    assertEquals("done", near.get(5, TimeUnit.SECONDS));
+    assertFalse(far.isDone());
+    assertFalse(farther.isDone());
+    assertFalse(periodic.isDone());
+    assertTrue(far.getDelay(TimeUnit.DAYS) > 365);
+    assertTrue(near.compareTo(far) < 0);
+    assertTrue(far.compareTo(near) > 0);
+    // both are capped, relative to the time they were scheduled
+    assertTrue(far.compareTo(farther) <= 0);
+  }
+
+  @Test
+  public void testShutdownNow() {
+    ScheduledFuture<?> future = timer.schedule(new TestRunnable(), 1, TimeUnit.HOURS);
+    List<Runnable> pending = timer.shutdownNow();
+
+    assertEquals(1, pending.size());
+    assertEquals(future, pending.get(0));
+    assertTrue(timer.isTerminated());
+    assertTrue(future.getDelay(TimeUnit.MINUTES) > 50);
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    assertEquals("done", timer.submit(new Callable<String>() {
+      @Override
+      public String call() {
+        return "done";
+      }
+    }).get());
+    assertFalse(timer.isShutdown());
+  }
+}
@@ -0,0 +1,258 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class TracedLimitingExecutorServiceTest extends AbstractConcurrentTest {
+
+  private Runnable blocker(final CountDownLatch release) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  private static AimdLimit fixedLimit(int limit) {
+    return new AimdLimit(limit, limit, limit, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * @return fields of the only admission event logged on the span
+   */
+  private static Map<String, ?> admission(MockSpan span) {
+    assertEquals(1, span.logEntries().size());
+    Map<String, ?> fields = span.logEntries().get(0).fields();
+    assertEquals(TracedLimitingExecutorService.ADMISSION_EVENT, fields.get("event"));
+    return fields;
+  }
+
+  @Test
+  public void testRejectBeyondLimit() throws Exception {
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(
+        Executors.newFixedThreadPool(2), mockTracer, fixedLimit(1));
+    CountDownLatch release = new CountDownLatch(1);
+
+    MockSpan admitted = mockTracer.buildSpan("admitted").start();
+    Scope scope = mockTracer.scopeManager().activate(admitted);
+    Future<?> future = executorService.submit(blocker(release));
+    scope.close();
+
+    MockSpan rejected = mockTracer.buildSpan("rejected").start();
+    scope = mockTracer.scopeManager().activate(rejected);
+    try {
+      executorService.submit(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    scope.close();
+
+    release.countDown();
+    future.get();
+    executorService.shutdown();
+    assertEquals(TracedLimitingExecutorService.ADMITTED,
+        admission(admitted).get(TracedLimitingExecutorService.ADMISSION_EVENT));
+    assertEquals(0L, admission(admitted).get(TracedLimitingExecutorService.ADMISSION_WAIT));
+    // the rejection is logged as well
+    assertEquals(2, rejected.logEntries().size());
+    assertEquals(TracedLimitingExecutorService.REJECTED, rejected.logEntries().get(0).fields()
+        .get(TracedLimitingExecutorService.ADMISSION_EVENT));
+  }
+
+  @Test
+  public void testQueueBeyondLimit() throws Exception {
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(
+        Executors.newFixedThreadPool(2), mockTracer, TracedExecutorOptions.DEFAULT, fixedLimit(1),
+        1);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> future = executorService.submit(new TestCallable());
+    scope.close();
+    assertEquals(1, executorService.queued());
+    try {
+      executorService.execute(new TestRunnable());
+      fail();
+    } catch (RejectedExecutionException e) {
+      // queue is full
+    }
+
+    release.countDown();
+    future.get();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(0, executorService.inFlight());
+    assertEquals(TracedLimitingExecutorService.QUEUED,
+        admission(parentSpan).get(TracedLimitingExecutorService.ADMISSION_EVENT));
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(parentSpan);
+  }
+
+  @Test
+  public void testAdmissionWaitIsQueueWait() throws Exception {
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(
+        Executors.newFixedThreadPool(2), mockTracer,
+        TracedExecutorOptions.builder().spanPerTask(true).build(), fixedLimit(1), 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> future = executorService.submit(new TestRunnable());
+    scope.close();
+    Thread.sleep(50);
+    release.countDown();
+    future.get();
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+    // the submitting span records the wait once
+    long admissionWaitNanos =
+        (Long) admission(parentSpan).get(TracedLimitingExecutorService.ADMISSION_WAIT);
+    assertTrue(admissionWaitNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(0, parentSpan.tags().size());
+    // the child span of the task finishes first, then the span of the task
+    assertEquals(2, mockTracer.finishedSpans().size());
+    MockSpan taskSpan = mockTracer.finishedSpans().get(1);
+    assertEquals(parentSpan.context().spanId(), taskSpan.parentId());
+    long queueWaitNanos = (Long) taskSpan.tags().get(InstrumentedTask.QUEUE_WAIT_TAG);
+    assertTrue(queueWaitNanos >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testQueuedTaskRejectedByDelegate() throws Exception {
+    // the single worker is busy while it admits the queued task, so the delegate rejects it
+    ExecutorService pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+        new SynchronousQueue<Runnable>());
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(pool,
+        mockTracer, TracedExecutorOptions.DEFAULT, fixedLimit(1), 1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> running = executorService.submit(blocker(release));
+    Future<?> queued = executorService.submit(new TestCallable());
+
+    release.countDown();
+    running.get();
+    try {
+      queued.get(5, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    assertEquals(1, executorService.rejectedTasks());
+    assertEquals(0, executorService.queued());
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, executorService.inFlight());
+  }
+
+  @Test
+  public void testQueuedExecuteRejectedByDelegateUsesFallback() throws Exception {
+    ExecutorService pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+        new SynchronousQueue<Runnable>());
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(pool,
+        mockTracer,
+        TracedExecutorOptions.builder().rejectionFallback(RejectionFallbacks.callerRuns()).build(),
+        fixedLimit(1), 1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> running = executorService.submit(blocker(release));
+    executorService.execute(new TestRunnable());
+
+    release.countDown();
+    running.get();
+    // run by the fallback on the worker which admitted it
+    assertTrue(countDownLatch.await(5, TimeUnit.SECONDS));
+    assertEquals(1, executorService.rejectedTasks());
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, executorService.inFlight());
+  }
+
+  @Test
+  public void testExpiredQueuedTaskFails() throws Exception {
+    TracedLimitingExecutorService executorService = new TracedLimitingExecutorService(
+        Executors.newFixedThreadPool(2), mockTracer,
+        TracedExecutorOptions.builder().propagateDeadline(true).build(), fixedLimit(1), 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executorService.execute(blocker(release));
+
+    Scope scope = ContextSnapshot.capture(mockTracer)
+        .with(Deadline.after(10, TimeUnit.MILLISECONDS))
+        .activate();
+    Future<?> future = executorService.submit(new TestRunnable());
+    scope.close();
+    Thread.sleep(20);
+    release.countDown();
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, executorService.inFlight());
+  }
+
+  @Test
+  public void testLimitAdapts() throws Exception {
+    AimdLimit limit = new AimdLimit(4, 1, 10, 1, TimeUnit.MINUTES);
+    ExecutorService executorService = new TracedLimitingExecutorService(
+        Executors.newFixedThreadPool(2), mockTracer, limit);
+
+    Future<?> failing = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException();
+      }
+    });
+    try {
+      failing.get();
+    } catch (Exception e) {
+      // expected
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(3, limit.limit());
+  }
+
+  @Test
+  public void testAimdLimit() {
+    AimdLimit limit = new AimdLimit(10, 2, 11, 10, TimeUnit.MILLISECONDS);
+    limit.onSample(2, 0, false);
+    assertEquals(10, limit.limit());
+    limit.onSample(5, 0, false);
+    assertEquals(11, limit.limit());
+    limit.onSample(11, 0, false);
+    assertEquals(11, limit.limit());
+    limit.onSample(11, TimeUnit.MILLISECONDS.toNanos(20), false);
+    assertEquals(9, limit.limit());
+    limit.onSample(1, 0, true);
+    assertEquals(8, limit.limit());
+  }
+}
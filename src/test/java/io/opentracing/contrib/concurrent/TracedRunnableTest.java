@@ -6,6 +6,7 @@ import io.opentracing.Scope;
 import org.junit.Test;
 
 import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
 
 /**
  * @author Pavol Loffay
@@ -39,4 +40,20 @@ public class TracedRunnableTest extends AbstractConcurrentTest {
     assertParentSpan(null);
     assertEquals(1, mockTracer.finishedSpans().size());
   }
+
+  @Test
+  public void testTracedRunnableSameThreadNoActivation() {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    mockTracer = new MockTracer(scopeManager);
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+
+    toTraced(new TestRunnable()).run();
+    assertEquals(parentSpan, mockTracer.activeSpan());
+    scope.close();
+
+    assertEquals(1, scopeManager.activations.get());
+    assertParentSpan(parentSpan);
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
 }
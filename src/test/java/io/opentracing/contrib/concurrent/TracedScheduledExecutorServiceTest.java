@@ -1,5 +1,6 @@
 package io.opentracing.contrib.concurrent;
 
+import io.opentracing.References;
 import io.opentracing.Scope;
 import io.opentracing.mock.MockSpan;
 import org.junit.Test;
@@ -7,6 +8,7 @@ import org.junit.Test;
 import java.util.concurrent.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Jose Montoya
@@ -42,6 +44,7 @@ public class TracedScheduledExecutorServiceTest extends AbstractConcurrentTest {
 		executorService.schedule(new TestRunnable(), 300, TimeUnit.MILLISECONDS);
 		countDownLatch.await();
 		assertEquals(2, mockTracer.finishedSpans().size());
+		assertParentSpan(findSpan("schedule"));
 	}
 
 	@Test
@@ -117,4 +120,60 @@ public class TracedScheduledExecutorServiceTest extends AbstractConcurrentTest {
 		executorService.shutdown();
 		assertEquals(3, mockTracer.finishedSpans().size());
 	}
+
+	@Test
+	public void scheduleAtFixedRatePeriodicSpansTest() throws InterruptedException {
+		countDownLatch = new CountDownLatch(3);
+		ScheduledExecutorService executorService = new TracedScheduledExecutorService(
+				Executors.newScheduledThreadPool(NUMBER_OF_THREADS), mockTracer,
+				TracedExecutorOptions.builder().periodicSpans(true).build());
+
+		MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+		Scope scope = mockTracer.scopeManager().activate(parentSpan);
+		executorService.scheduleAtFixedRate(new TestRunnable(), 0, 50, TimeUnit.MILLISECONDS);
+		scope.close();
+		parentSpan.finish();
+
+		countDownLatch.await();
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+		int runs = 0;
+		for (MockSpan span: mockTracer.finishedSpans()) {
+			if (!"scheduleAtFixedRate".equals(span.operationName())) {
+				continue;
+			}
+			assertEquals(1, span.references().size());
+			assertEquals(References.FOLLOWS_FROM, span.references().get(0).getReferenceType());
+			assertEquals(parentSpan.context().spanId(), span.references().get(0).getContext().spanId());
+			assertEquals((long) runs, span.tags().get(PeriodicRunnable.RUN_TAG));
+			assertTrue(span.tags().containsKey(PeriodicRunnable.LATENESS_TAG));
+			assertEquals(runs > 0, span.tags().containsKey(PeriodicRunnable.DRIFT_TAG));
+			runs++;
+		}
+		assertTrue(runs >= 3);
+		// every run span has its own child
+		assertEquals(runs * 2 + 1, mockTracer.finishedSpans().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectionFallbackNotSupportedTest() {
+		ScheduledExecutorService delegate = Executors.newSingleThreadScheduledExecutor();
+		try {
+			new TracedScheduledExecutorService(delegate, mockTracer, TracedExecutorOptions.builder()
+					.rejectionFallback(RejectionFallbacks.callerRuns())
+					.build());
+		} finally {
+			delegate.shutdown();
+		}
+	}
+
+	private MockSpan findSpan(String operationName) {
+		for (MockSpan span: mockTracer.finishedSpans()) {
+			if (operationName.equals(span.operationName())) {
+				return span;
+			}
+		}
+		return null;
+	}
 }
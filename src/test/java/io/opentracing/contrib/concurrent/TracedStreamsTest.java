@@ -0,0 +1,91 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class TracedStreamsTest extends AbstractConcurrentTest {
+
+  private static final int ELEMENTS = 100000;
+
+  private final CountingScopeManager scopeManager = new CountingScopeManager();
+  private final MockTracer tracer = new MockTracer(scopeManager);
+
+  private static List<Integer> elements() {
+    List<Integer> elements = new ArrayList<Integer>(ELEMENTS);
+    for (int i = 0; i < ELEMENTS; i++) {
+      elements.add(i);
+    }
+    return elements;
+  }
+
+  private Predicate<Integer> activeSpanIs(final Span span, final AtomicBoolean mismatch) {
+    return new Predicate<Integer>() {
+      @Override
+      public boolean test(Integer element) {
+        if (tracer.activeSpan() != span) {
+          mismatch.set(true);
+        }
+        return element % 2 == 0;
+      }
+    };
+  }
+
+  @Test
+  public void testParallelStreamActivatesPerChunk() {
+    MockSpan parentSpan = tracer.buildSpan("foo").start();
+    Scope scope = tracer.scopeManager().activate(parentSpan);
+    int activationsBefore = scopeManager.activations.get();
+    AtomicBoolean mismatch = new AtomicBoolean();
+    long count = TracedStreams.parallelStream(elements(), tracer)
+        .filter(activeSpanIs(parentSpan, mismatch))
+        .count();
+    int activations = scopeManager.activations.get() - activationsBefore;
+    scope.close();
+
+    assertEquals(ELEMENTS / 2, count);
+    assertEquals(false, mismatch.get());
+    assertTrue("activations: " + activations, activations < ELEMENTS / 100);
+  }
+
+  @Test
+  public void testWrapStream() {
+    MockSpan parentSpan = tracer.buildSpan("foo").start();
+    Scope scope = tracer.scopeManager().activate(parentSpan);
+    final AtomicInteger closed = new AtomicInteger();
+    Stream<Integer> stream = elements().parallelStream().onClose(new Runnable() {
+      @Override
+      public void run() {
+        closed.incrementAndGet();
+      }
+    });
+    AtomicBoolean mismatch = new AtomicBoolean();
+    Stream<Integer> traced = TracedStreams.stream(stream, tracer);
+    long count = traced.filter(activeSpanIs(parentSpan, mismatch)).count();
+    scope.close();
+    traced.close();
+
+    assertEquals(ELEMENTS / 2, count);
+    assertEquals(false, mismatch.get());
+    assertEquals(1, closed.get());
+  }
+
+  @Test
+  public void testWithoutActiveSpan() {
+    Spliterator<Integer> spliterator = elements().spliterator();
+    assertSame(spliterator, TracedStreams.spliterator(spliterator, tracer));
+  }
+}
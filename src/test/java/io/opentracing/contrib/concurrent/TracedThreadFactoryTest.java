@@ -0,0 +1,145 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+public class TracedThreadFactoryTest extends AbstractConcurrentTest {
+
+  @Test
+  public void testNewThreadPropagatesSpan() throws InterruptedException {
+    TracedThreadFactory threadFactory =
+        new TracedThreadFactory(Executors.defaultThreadFactory(), mockTracer, "loaders", true);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Thread thread = threadFactory.newThread(new TestRunnable());
+    scope.close();
+    thread.start();
+    thread.join();
+
+    MockSpan threadSpan = assertThreadSpan(parentSpan);
+    assertEquals(thread.getName(), threadSpan.tags().get(TracedThreads.THREAD_NAME_TAG));
+    assertEquals("loaders", threadSpan.tags().get(TracedThreads.POOL_NAME_TAG));
+  }
+
+  @Test
+  public void testDefaultDoesNotPropagateSpan() throws InterruptedException {
+    TracedThreadFactory threadFactory =
+        new TracedThreadFactory(Executors.defaultThreadFactory(), mockTracer);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Thread thread = threadFactory.newThread(new TestRunnable());
+    scope.close();
+    thread.start();
+    thread.join();
+
+    assertParentSpan(null);
+    // the worker span is a root span which is not active while the runnable runs
+    List<MockSpan> finished = mockTracer.finishedSpans();
+    assertEquals(2, finished.size());
+    MockSpan workerSpan = finished.get(1);
+    assertEquals(TracedThreads.OPERATION_NAME, workerSpan.operationName());
+    assertEquals(thread.getName(), workerSpan.tags().get(TracedThreads.THREAD_NAME_TAG));
+    assertTrue(((String) workerSpan.tags().get(TracedThreads.POOL_NAME_TAG))
+        .startsWith("traced-pool-"));
+  }
+
+  @Test
+  public void testPrewarmDoesNotFailThread() throws InterruptedException {
+    final AtomicBoolean warmedUp = new AtomicBoolean();
+    // fails the first lookup, i.e. the warm-up
+    MockTracer tracer = new MockTracer(new ThreadLocalScopeManager() {
+      @Override
+      public Span activeSpan() {
+        if (warmedUp.compareAndSet(false, true)) {
+          throw new UnsupportedOperationException();
+        }
+        return super.activeSpan();
+      }
+    });
+    final AtomicBoolean ran = new AtomicBoolean();
+    Thread thread = new TracedThreadFactory(Executors.defaultThreadFactory(), tracer)
+        .newThread(new Runnable() {
+          @Override
+          public void run() {
+            ran.set(true);
+          }
+        });
+    thread.start();
+    thread.join();
+
+    assertTrue(warmedUp.get());
+    assertTrue(ran.get());
+    assertEquals(1, tracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testPoolWorkersDoNotKeepCreatorSpan() throws InterruptedException {
+    ExecutorService executorService = Executors.newSingleThreadExecutor(
+        new TracedThreadFactory(Executors.defaultThreadFactory(), mockTracer, "pool", false));
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    // creates the worker thread
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+      }
+    });
+    scope.close();
+    executorService.execute(new TestRunnable());
+    executorService.shutdown();
+    executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+    assertParentSpan(null);
+    assertNull(parentSpan.tags().get(TracedThreads.POOL_NAME_TAG));
+  }
+
+  @Test
+  public void testStart() throws InterruptedException {
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Thread thread = TracedThreads.start(new TestRunnable(), "worker", mockTracer);
+    scope.close();
+    thread.join();
+
+    MockSpan threadSpan = assertThreadSpan(parentSpan);
+    assertEquals("worker", threadSpan.tags().get(TracedThreads.THREAD_NAME_TAG));
+    assertTrue(parentSpan.tags().isEmpty());
+  }
+
+  /**
+   * @return span of the thread, which is the parent of the span created by the runnable
+   */
+  private MockSpan assertThreadSpan(MockSpan parentSpan) {
+    List<MockSpan> finished = mockTracer.finishedSpans();
+    assertEquals(2, finished.size());
+    MockSpan threadSpan = finished.get(1);
+    assertEquals(TracedThreads.OPERATION_NAME, threadSpan.operationName());
+    assertEquals(parentSpan.context().spanId(), threadSpan.parentId());
+    assertEquals(threadSpan.context().spanId(), finished.get(0).parentId());
+    return threadSpan;
+  }
+
+  @Test
+  public void testStartWithoutSpan() throws InterruptedException {
+    TracedThreads.start(new TestRunnable(), mockTracer).join();
+
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertParentSpan(null);
+  }
+}
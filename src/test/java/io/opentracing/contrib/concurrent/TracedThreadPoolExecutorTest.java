@@ -0,0 +1,296 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TracedThreadPoolExecutorTest extends AbstractConcurrentTest {
+
+  private static final int NUMBER_OF_THREADS = 4;
+
+  private final ExecutorMetrics metrics = new ExecutorMetrics();
+
+  private ThreadPoolExecutor newExecutor(TracedExecutorOptions options) {
+    return new TracedThreadPoolExecutor(NUMBER_OF_THREADS, NUMBER_OF_THREADS, 0,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), mockTracer, options);
+  }
+
+  @Test
+  public void testExecute() throws InterruptedException {
+    ThreadPoolExecutor executor = newExecutor(TracedExecutorOptions.DEFAULT);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executor.execute(new TestRunnable());
+    scope.close();
+
+    countDownLatch.await();
+    assertParentSpan(parentSpan);
+    assertEquals(1, mockTracer.finishedSpans().size());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    ThreadPoolExecutor executor = newExecutor(TracedExecutorOptions.DEFAULT);
+    countDownLatch = new CountDownLatch(2);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> runnableFuture = executor.submit(new TestRunnable());
+    Future<?> callableFuture = executor.submit(new TestCallable());
+    scope.close();
+
+    runnableFuture.get();
+    callableFuture.get();
+    assertParentSpan(parentSpan);
+    assertEquals(2, mockTracer.finishedSpans().size());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testInvokeAll() throws InterruptedException {
+    ThreadPoolExecutor executor = newExecutor(TracedExecutorOptions.DEFAULT);
+    countDownLatch = new CountDownLatch(2);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+    callables.add(new TestCallable());
+    callables.add(new TestCallable());
+    executor.invokeAll(callables);
+    scope.close();
+
+    assertParentSpan(parentSpan);
+    assertEquals(2, mockTracer.finishedSpans().size());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testNoActiveSpan() throws Exception {
+    ThreadPoolExecutor executor = newExecutor(TracedExecutorOptions.DEFAULT);
+
+    executor.submit(new TestCallable()).get();
+    assertParentSpan(null);
+    assertEquals(1, mockTracer.finishedSpans().size());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testListener() throws InterruptedException {
+    ThreadPoolExecutor executor = newExecutor(
+        TracedExecutorOptions.builder().addListener(metrics).build());
+
+    Future<?> failing = executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException();
+      }
+    });
+    try {
+      failing.get();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    executor.execute(new TestRunnable());
+    countDownLatch.await();
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.SECONDS);
+
+    assertEquals(2, metrics.submitted());
+    assertEquals(2, metrics.started());
+    assertEquals(1, metrics.completed());
+    assertEquals(1, metrics.failed());
+    assertEquals(2, metrics.runTime().count());
+  }
+
+  @Test
+  public void testInvokeAnyListener() throws Exception {
+    final List<Object> startedTasks = new ArrayList<Object>();
+    ThreadPoolExecutor executor = newExecutor(TracedExecutorOptions.builder()
+        .addListener(metrics)
+        .addListener(new ExecutorMetrics() {
+          @Override
+          public void onStart(Object task, Span span, long queueWaitNanos) {
+            synchronized (startedTasks) {
+              startedTasks.add(task);
+            }
+          }
+        })
+        .build());
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Callable<Void> callable = new TestCallable();
+    executor.invokeAny(Collections.singletonList(callable));
+    scope.close();
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.SECONDS);
+
+    assertEquals(1, metrics.submitted());
+    assertEquals(1, metrics.started());
+    assertEquals(1, metrics.completed());
+    assertEquals(Collections.<Object>singletonList(callable), startedTasks);
+    assertParentSpan(parentSpan);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedOptions() {
+    newExecutor(TracedExecutorOptions.builder().spanPerTask(true).build());
+  }
+
+  @Test
+  public void testShutdownNowReturnsOriginalTasks() throws InterruptedException {
+    ThreadPoolExecutor executor = new TracedThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), mockTracer);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Runnable queued = new TestRunnable();
+    executor.execute(queued);
+    scope.close();
+
+    List<Runnable> pending = executor.shutdownNow();
+    assertEquals(1, pending.size());
+    assertSame(queued, pending.get(0));
+    blocked.countDown();
+  }
+
+  @Test
+  public void testQueueAndRemoveSeeOriginalTask() throws InterruptedException {
+    ThreadPoolExecutor executor = new TracedThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), mockTracer);
+    CountDownLatch blocked = blockWorker(executor);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Runnable queued = new TestRunnable();
+    executor.execute(queued);
+    scope.close();
+
+    assertSame(queued, executor.getQueue().peek());
+    assertTrue(executor.remove(queued));
+    assertTrue(executor.getQueue().isEmpty());
+    assertFalse(executor.remove(queued));
+    blocked.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  public void testCallerRunsPolicy() throws InterruptedException {
+    ThreadPoolExecutor executor = newBusyExecutor(new ThreadPoolExecutor.CallerRunsPolicy());
+    CountDownLatch blocked = blockWorker(executor);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    executor.execute(new TestRunnable());
+    scope.close();
+
+    assertEquals(0, countDownLatch.getCount());
+    assertParentSpan(parentSpan);
+    assertEquals(2, metrics.submitted());
+    assertEquals(0, metrics.rejected());
+    assertEquals(2, metrics.started());
+    assertEquals(1, metrics.completed());
+    blocked.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  public void testDiscardPolicy() throws InterruptedException {
+    ThreadPoolExecutor executor = newBusyExecutor(new ThreadPoolExecutor.DiscardPolicy());
+    CountDownLatch blocked = blockWorker(executor);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    Future<?> future = executor.submit(new TestRunnable());
+    scope.close();
+
+    assertFalse(future.isDone());
+    assertEquals(2, metrics.submitted());
+    assertEquals(1, metrics.rejected());
+    assertEquals(1, metrics.inFlight());
+    assertEquals(1, parentSpan.logEntries().size());
+    blocked.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  public void testDiscardOldestPolicy() throws InterruptedException {
+    ThreadPoolExecutor executor = new TracedThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(1), Executors.defaultThreadFactory(),
+        new ThreadPoolExecutor.DiscardOldestPolicy(), mockTracer,
+        TracedExecutorOptions.builder().addListener(metrics).build());
+    CountDownLatch blocked = blockWorker(executor);
+    executor.execute(new TestRunnable());
+
+    Runnable retried = new TestRunnable();
+    executor.execute(retried);
+
+    assertSame(retried, executor.getQueue().peek());
+    assertEquals(3, metrics.submitted());
+    assertEquals(0, metrics.rejected());
+    blocked.countDown();
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.SECONDS);
+    assertEquals(2, metrics.started());
+  }
+
+  private ThreadPoolExecutor newBusyExecutor(RejectedExecutionHandler handler) {
+    return new TracedThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new SynchronousQueue<Runnable>(), Executors.defaultThreadFactory(), handler, mockTracer,
+        TracedExecutorOptions.builder().addListener(metrics).build());
+  }
+
+  /**
+   * Occupies the only worker until the returned latch is counted down.
+   */
+  private static CountDownLatch blockWorker(ThreadPoolExecutor executor)
+      throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    started.await();
+    return blocked;
+  }
+}
@@ -0,0 +1,50 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TracedExecutorsVirtualThreadTest extends AbstractConcurrentTest {
+
+  private static final int NUMBER_OF_TASKS = 10000;
+
+  @Test
+  public void testVirtualThreadPerTask() throws InterruptedException, ExecutionException {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    MockTracer tracer = new MockTracer(scopeManager);
+    ExecutorService executorService = TracedExecutors.newVirtualThreadPerTaskExecutor(tracer);
+
+    MockSpan parentSpan = tracer.buildSpan("foo").start();
+    Scope scope = tracer.scopeManager().activate(parentSpan);
+    List<Future<Span>> futures = new ArrayList<>(NUMBER_OF_TASKS);
+    for (int i = 0; i < NUMBER_OF_TASKS; i++) {
+      futures.add(executorService.submit(() -> {
+        assertTrue(Thread.currentThread().isVirtual());
+        return tracer.activeSpan();
+      }));
+    }
+    scope.close();
+
+    for (Future<Span> future: futures) {
+      assertEquals(parentSpan, future.get());
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    // every task closed the scope it activated, the caller's scope included
+    assertEquals(NUMBER_OF_TASKS + 1, scopeManager.activations.get());
+    assertEquals(NUMBER_OF_TASKS + 1, scopeManager.closes.get());
+    assertNull(tracer.activeSpan());
+  }
+}
@@ -0,0 +1,260 @@
+package io.opentracing.contrib.concurrent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TracedSubmissionPublisherTest extends AbstractConcurrentTest {
+
+  /**
+   * Delivery tasks queued until {@link #runTasks()}, so that one task serves all items.
+   */
+  private final Queue<Runnable> tasks = new ArrayDeque<>();
+  private final Executor manual = tasks::add;
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private static void submit(TracedSubmissionPublisher<String> publisher, Tracer tracer,
+      Span span, String item) {
+    Scope scope = span == null ? null : tracer.scopeManager().activate(span);
+    try {
+      publisher.submit(item);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+  }
+
+  @Test
+  public void testItemsDeliveredInPublishSpan() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(executor, 16, mockTracer);
+    Recorder recorder = new Recorder(mockTracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+
+    MockSpan first = mockTracer.buildSpan("first").start();
+    MockSpan second = mockTracer.buildSpan("second").start();
+    submit(publisher, mockTracer, first, "a");
+    submit(publisher, mockTracer, second, "b");
+    submit(publisher, mockTracer, null, "c");
+    submit(publisher, mockTracer, first, "d");
+    publisher.close();
+
+    assertTrue(recorder.terminated.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertEquals(Arrays.asList("a", "b", "c", "d"), recorder.items);
+    assertEquals(Arrays.<Span>asList(first, second, null, first), recorder.spans);
+    assertTrue(recorder.completed);
+    assertNull(recorder.terminalSpan);
+  }
+
+  @Test
+  public void testRunOfSameSpanActivatedOnce() {
+    CountingScopeManager scopeManager = new CountingScopeManager();
+    MockTracer tracer = new MockTracer(scopeManager);
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 16, tracer);
+    Recorder recorder = new Recorder(tracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+    runTasks();
+
+    MockSpan first = tracer.buildSpan("first").start();
+    MockSpan second = tracer.buildSpan("second").start();
+    List<MockSpan> published = Arrays.asList(first, first, first, second, second, null, first);
+    for (MockSpan span: published) {
+      submit(publisher, tracer, span, "item");
+    }
+    int activationsBefore = scopeManager.activations.get();
+    int closesBefore = scopeManager.closes.get();
+    runTasks();
+
+    assertEquals(published, recorder.spans);
+    assertEquals(3, scopeManager.activations.get() - activationsBefore);
+    assertEquals(3, scopeManager.closes.get() - closesBefore);
+    assertNull(tracer.activeSpan());
+  }
+
+  @Test
+  public void testDeliveryIgnoresDeadline() {
+    TracedExecutorOptions options = TracedExecutorOptions.builder()
+        .traceWithActiveSpanOnly(false)
+        .propagateDeadline(true)
+        .build();
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 16, mockTracer, options);
+    Recorder recorder = new Recorder(mockTracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+    runTasks();
+    mockTracer.reset();
+
+    // the delivery task serves later items too, it must not inherit the deadline of the submit
+    Scope scope = ContextSnapshot.of(mockTracer, null)
+        .with(Deadline.after(0, TimeUnit.NANOSECONDS))
+        .activate();
+    publisher.submit("a");
+    scope.close();
+    runTasks();
+    publisher.submit("b");
+    runTasks();
+
+    assertEquals(Arrays.asList("a", "b"), recorder.items);
+    // submitted without an active span, the delivery tasks are traced in spans of their own
+    assertEquals(2, mockTracer.finishedSpans().size());
+    for (MockSpan span: mockTracer.finishedSpans()) {
+      assertEquals("execute", span.operationName());
+    }
+  }
+
+  @Test
+  public void testTerminalSignalsWithoutSpan() {
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 16, mockTracer);
+    Recorder recorder = new Recorder(mockTracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    submit(publisher, mockTracer, parentSpan, "a");
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    publisher.close();
+    scope.close();
+    // the item and the completion are delivered by one task, which holds the span of the item
+    runTasks();
+
+    assertEquals(Arrays.<Span>asList(parentSpan), recorder.spans);
+    assertTrue(recorder.completed);
+    assertNull(recorder.terminalSpan);
+    assertNull(mockTracer.activeSpan());
+  }
+
+  @Test
+  public void testErrorWithoutSpan() {
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 16, mockTracer);
+    Recorder recorder = new Recorder(mockTracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+    runTasks();
+
+    MockSpan parentSpan = mockTracer.buildSpan("foo").start();
+    Scope scope = mockTracer.scopeManager().activate(parentSpan);
+    IllegalStateException error = new IllegalStateException();
+    publisher.closeExceptionally(error);
+    scope.close();
+    runTasks();
+
+    assertSame(error, recorder.error);
+    assertNull(recorder.terminalSpan);
+  }
+
+  @Test
+  public void testBufferLagAndBacklog() throws InterruptedException {
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 16, mockTracer);
+    Recorder recorder = new Recorder(mockTracer, Long.MAX_VALUE);
+    publisher.subscribe(recorder);
+    runTasks();
+
+    assertEquals(1, publisher.submit("a"));
+    assertEquals(2, publisher.submit("b"));
+    assertEquals(3, publisher.submit("c"));
+    Thread.sleep(10);
+    runTasks();
+
+    assertEquals(3, publisher.backlog().count());
+    assertEquals(3, publisher.backlog().max());
+    assertEquals(3, publisher.bufferLag().count());
+    assertTrue(publisher.bufferLag().max() >= TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void testOfferDropsToOriginalSubscriber() {
+    TracedSubmissionPublisher<String> publisher =
+        new TracedSubmissionPublisher<>(manual, 1, mockTracer);
+    Recorder recorder = new Recorder(mockTracer, 0);
+    publisher.subscribe(recorder);
+    runTasks();
+
+    final Object[] dropped = new Object[2];
+    assertEquals(1, publisher.offer("a", null));
+    assertTrue(publisher.offer("b", (subscriber, item) -> {
+      dropped[0] = subscriber;
+      dropped[1] = item;
+      return false;
+    }) < 0);
+
+    assertArrayEquals(new Object[] {recorder, "b"}, dropped);
+    // the drop is recorded as zero backlog
+    assertEquals(2, publisher.backlog().count());
+    assertEquals(1, publisher.backlog().max());
+  }
+
+  private static final class Recorder implements Flow.Subscriber<String> {
+
+    private final Tracer tracer;
+    private final long demand;
+    private final List<String> items = new ArrayList<>();
+    private final List<Span> spans = new ArrayList<>();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean completed;
+    private volatile Throwable error;
+    private volatile Span terminalSpan;
+
+    private Recorder(Tracer tracer, long demand) {
+      this.tracer = tracer;
+      this.demand = demand;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      if (demand > 0) {
+        subscription.request(demand);
+      }
+    }
+
+    @Override
+    public void onNext(String item) {
+      items.add(item);
+      spans.add(tracer.activeSpan());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      terminalSpan = tracer.activeSpan();
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminalSpan = tracer.activeSpan();
+      terminated.countDown();
+    }
+  }
+}